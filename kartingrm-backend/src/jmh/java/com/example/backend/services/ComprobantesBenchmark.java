@@ -0,0 +1,42 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Comprobante;
+import com.example.backend.entities.Reserva;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Render sin cache de un comprobante de 4 participantes. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComprobantesBenchmark {
+
+    private ComprobanteService service;
+    private Comprobante comprobante;
+
+    @Setup
+    public void preparar() {
+        service = new ComprobanteService();
+        LocalDateTime inicio = LocalDateTime.of(2030, 1, 1, 15, 0);
+        Reserva reserva = new Reserva(7L, 1L, inicio, inicio.plusMinutes(30), 4, 10, 15000, 71400, "CONFIRMADA",
+                List.of(1L, 2L, 3L, 4L), List.of(1L, 2L, 3L, 4L), null, null);
+        comprobante = new Comprobante(9L, reserva, "Ana Pérez",
+                List.of("Ana Pérez", "Luis Soto", "Eva Díaz", "Juan Paz"), 60000, 0, 60000, 11400, 71400);
+    }
+
+    @Benchmark
+    public byte[] generarPdf() throws Exception {
+        return service.generarPdf(comprobante);
+    }
+
+    @Benchmark
+    public byte[] generarExcel() throws Exception {
+        return service.generarExcel(comprobante);
+    }
+}
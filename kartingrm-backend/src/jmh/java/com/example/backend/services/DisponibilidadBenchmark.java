@@ -0,0 +1,78 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Kart;
+import com.example.backend.repositories.ReservaRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Filtrado de karts libres en el índice en memoria con flotas de distinto tamaño.
+ * La mitad de la flota queda ocupada por reservas de 30 minutos repartidas en el día.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisponibilidadBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int karts;
+
+    private DisponibilidadKartsService service;
+
+    private LocalDateTime base;
+    private int franja;
+
+    @Setup
+    public void preparar() {
+        ReservaRepository reservaRepository = mock(ReservaRepository.class);
+        when(reservaRepository.findKartsReservadosDesde(any())).thenReturn(List.of());
+        KartService kartService = mock(KartService.class);
+        when(kartService.obtenerTodos()).thenReturn(LongStream.rangeClosed(1, karts)
+                .mapToObj(id -> new Kart(id, "Sodikart RT8", "K" + id))
+                .toList());
+
+        service = new DisponibilidadKartsService();
+        ReflectionTestUtils.setField(service, "reservaRepository", reservaRepository);
+        ReflectionTestUtils.setField(service, "kartService", kartService);
+        service.cargar();
+
+        base = LocalDate.now().plusDays(1).atTime(10, 0);
+        long id = 1;
+        for (int f = 0; f < 48; f++) {
+            LocalDateTime inicio = base.plusMinutes(15L * f);
+            DisponibilidadKartsService.Intervalo reclamo =
+                    service.reclamarKarts(inicio, inicio.plusMinutes(30), karts / 4);
+            if (reclamo != null) {
+                service.confirmar(reclamo, id++);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Long> buscarKartsLibres() {
+        franja = (franja + 1) % 48;
+        LocalDateTime inicio = base.plusMinutes(15L * franja);
+        return service.buscarKartsLibres(inicio, inicio.plusMinutes(30), 15);
+    }
+
+    // Con un pedido mayor que los libres se recorre toda la flota
+    @Benchmark
+    public List<Long> buscarKartsLibresFlotaCompleta() {
+        franja = (franja + 1) % 48;
+        LocalDateTime inicio = base.plusMinutes(15L * franja);
+        return service.buscarKartsLibres(inicio, inicio.plusMinutes(30), karts);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.backend.services;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de precio de MotorPrecios: búsqueda en las tablas de descuentos, elección del
+ * mayor descuento e IVA, sin tocar la base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreciosBenchmark {
+
+    private TablaDescuentos porCantidad;
+    private TablaDescuentos porFrecuencia;
+
+    private int n;
+
+    @Setup
+    public void preparar() {
+        porCantidad = new TablaDescuentos(List.of(
+                new TablaDescuentos.Rango(1, 2, 0),
+                new TablaDescuentos.Rango(3, 5, 10),
+                new TablaDescuentos.Rango(6, 10, 20),
+                new TablaDescuentos.Rango(11, 15, 30)));
+        porFrecuencia = new TablaDescuentos(List.of(
+                new TablaDescuentos.Rango(0, 1, 0),
+                new TablaDescuentos.Rango(2, 4, 10),
+                new TablaDescuentos.Rango(5, 6, 20),
+                new TablaDescuentos.Rango(7, 5000, 30)));
+    }
+
+    @Benchmark
+    public int buscarDescuentoDenso() {
+        n = (n + 1) & 15;
+        return porCantidad.buscar(n);
+    }
+
+    // Conteos sobre el límite denso, resueltos por búsqueda binaria
+    @Benchmark
+    public int buscarDescuentoDisperso() {
+        n = (n + 7) & 4095;
+        return porFrecuencia.buscar(1024 + n);
+    }
+
+    @Benchmark
+    public void cotizar(Blackhole bh) {
+        n = (n + 1) & 15;
+        int personas = 1 + n % 15;
+        bh.consume(MotorPrecios.desglosar(10, 30, 15000, personas, n % 3 == 0 ? 10 : 0,
+                porCantidad.buscar(personas), porFrecuencia.buscar(n)));
+    }
+}
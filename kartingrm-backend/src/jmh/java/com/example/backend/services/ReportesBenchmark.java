@@ -0,0 +1,84 @@
+package com.example.backend.services;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Reserva;
+import com.example.backend.repositories.ReservaRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reportes de ingresos contra la base H2 de los tests, con un mes de reservas cargado.
+ * El rango mensual sale de los ingresos diarios; el rango con horas parciales también
+ * consulta las reservas de los extremos. Se mide el cálculo sin cache, salvo en
+ * {@code ingresosPorVueltasDesdeCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportesBenchmark {
+
+    @Param({"3000"})
+    private int reservas;
+
+    private ConfigurableApplicationContext contexto;
+    private ReportesService reportesService;
+
+    private final LocalDateTime inicioMes = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+    @Setup
+    public void preparar() {
+        contexto = SpringApplication.run(BackendApplication.class, "--spring.main.banner-mode=off",
+                "--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        reportesService = contexto.getBean(ReportesService.class);
+        ReservaRepository reservaRepository = contexto.getBean(ReservaRepository.class);
+        IngresoDiarioService ingresoDiarioService = contexto.getBean(IngresoDiarioService.class);
+
+        List<Reserva> lote = new ArrayList<>();
+        for (int i = 0; i < reservas; i++) {
+            LocalDateTime inicio = inicioMes.plusDays(i % 29).withHour(10 + i % 12);
+            int personas = 1 + i % 15;
+            lote.add(new Reserva(null, 1L, inicio, inicio.plusMinutes(30), personas, 10 + 5 * (i % 3),
+                    15000, 15000 * personas, "CONFIRMADA", List.of(1L), List.of(1L), null, null));
+        }
+        reservaRepository.saveAll(lote);
+        try {
+            ingresoDiarioService.reconstruir(false);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Object ingresosPorVueltasMes() {
+        return reportesService.calcular(ReportesService.VUELTAS, inicioMes, inicioMes.plusMonths(1).minusNanos(1_000));
+    }
+
+    @Benchmark
+    public Object ingresosPorPersonasMes() {
+        return reportesService.calcular(ReportesService.PERSONAS, inicioMes, inicioMes.plusMonths(1).minusNanos(1_000));
+    }
+
+    @Benchmark
+    public Object ingresosPorVueltasConHorasParciales() {
+        return reportesService.calcular(ReportesService.VUELTAS, inicioMes.plusHours(13), inicioMes.plusDays(20).plusHours(15));
+    }
+
+    @Benchmark
+    public Object ingresosPorVueltasDesdeCache() {
+        return reportesService.generarIngresosPorVueltas(inicioMes, inicioMes.plusMonths(1).minusNanos(1_000));
+    }
+}
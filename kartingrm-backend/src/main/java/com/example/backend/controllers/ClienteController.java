@@ -3,8 +3,10 @@ package com.example.backend.controllers;
 import com.example.backend.entities.Cliente;
 import com.example.backend.services.ClienteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,9 +20,20 @@ public class ClienteController {
     @Autowired
     private ClienteService clienteService;
 
+    // Paginado por llave: para la página siguiente se envía el id del último cliente recibido
     @GetMapping
-    public ResponseEntity<List<Cliente>> obtenerTodos() {
-        return ResponseEntity.ok(clienteService.obtenerTodos());
+    public ResponseEntity<List<Cliente>> obtenerTodos(
+            @RequestParam(defaultValue = "0") Long despuesDeId,
+            @RequestParam(defaultValue = "100") int limite
+    ) {
+        return ResponseEntity.ok(clienteService.obtenerPagina(despuesDeId, ReservaController.acotarLimite(limite)));
+    }
+
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarClientes() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(clienteService::exportarTodos);
     }
 
     @GetMapping("/{id}")
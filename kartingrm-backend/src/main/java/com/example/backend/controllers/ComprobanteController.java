@@ -0,0 +1,82 @@
+package com.example.backend.controllers;
+
+import com.example.backend.entities.Comprobante;
+import com.example.backend.services.ComprobanteService;
+import com.example.backend.services.ExportacionComprobantesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/comprobantes")
+public class ComprobanteController {
+
+    private static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    @Autowired
+    private ComprobanteService comprobanteService;
+
+    @Autowired
+    private ExportacionComprobantesService exportacionComprobantesService;
+
+    @GetMapping("/{id}/pdf")
+    public ResponseEntity<byte[]> descargarPdf(@PathVariable Long id) throws Exception {
+        Comprobante comprobante = buscar(id);
+        return descarga(comprobanteService.obtenerPdf(comprobante), MediaType.APPLICATION_PDF,
+                "comprobante_" + comprobante.getReserva().getId() + ".pdf");
+    }
+
+    @GetMapping("/{id}/excel")
+    public ResponseEntity<byte[]> descargarExcel(@PathVariable Long id) throws Exception {
+        Comprobante comprobante = buscar(id);
+        return descarga(comprobanteService.obtenerExcel(comprobante), XLSX,
+                "comprobante_" + comprobante.getReserva().getId() + ".xlsx");
+    }
+
+    // ZIP con los comprobantes de las reservas entre desde y hasta (inclusive), escrito a medida que se renderizan
+    @GetMapping(value = "/exportar", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "false") boolean excel
+    ) {
+        if (hasta.isBefore(desde)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La fecha hasta no puede ser anterior a desde");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("comprobantes_" + desde + "_" + hasta + ".zip").build().toString())
+                .body(salida -> exportacionComprobantesService.exportarZip(desde, hasta, excel, salida));
+    }
+
+    @GetMapping("/cache/estadisticas")
+    public Map<String, Object> estadisticasCache() {
+        return comprobanteService.estadisticasCache();
+    }
+
+    private Comprobante buscar(Long id) {
+        return comprobanteService.buscar(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Comprobante no encontrado"));
+    }
+
+    private ResponseEntity<byte[]> descarga(byte[] contenido, MediaType tipo, String nombreArchivo) {
+        return ResponseEntity.ok()
+                .contentType(tipo)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(nombreArchivo).build().toString())
+                .body(contenido);
+    }
+}
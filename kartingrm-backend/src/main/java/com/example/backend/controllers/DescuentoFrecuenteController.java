@@ -1,8 +1,14 @@
 package com.example.backend.controllers;
 
+import com.example.backend.entities.descuentoFrecuente;
 import com.example.backend.services.descuentoFrecuenteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -16,4 +22,39 @@ public class DescuentoFrecuenteController {
     public int obtenerDescuento(@RequestParam int Frecuencia) {
         return service.calcularDescuentoPorFrecuencia(Frecuencia);
     }
+
+    @GetMapping("/reglas")
+    public List<descuentoFrecuente> obtenerReglas() {
+        return service.obtenerTodos();
+    }
+
+    @PostMapping("/reglas")
+    public descuentoFrecuente crearRegla(@RequestBody descuentoFrecuente descuento) {
+        descuento.setId(null);
+        return guardar(descuento);
+    }
+
+    @PutMapping("/reglas/{id}")
+    public descuentoFrecuente actualizarRegla(@PathVariable Long id, @RequestBody descuentoFrecuente descuento) {
+        descuento.setId(id);
+        return guardar(descuento);
+    }
+
+    @DeleteMapping("/reglas/{id}")
+    public ResponseEntity<Void> eliminarRegla(@PathVariable Long id) {
+        try {
+            service.eliminar(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private descuentoFrecuente guardar(descuentoFrecuente descuento) {
+        try {
+            return service.guardar(descuento);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 }
@@ -1,8 +1,14 @@
 package com.example.backend.controllers;
 
+import com.example.backend.entities.DescuentoPorCantidad;
 import com.example.backend.services.DescuentoPorCantidadService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -16,4 +22,39 @@ public class DescuentoPorCantidadController {
     public int obtenerDescuento(@RequestParam int cantidad) {
         return service.calcularDescuentoPorCantidad(cantidad);
     }
+
+    @GetMapping("/reglas")
+    public List<DescuentoPorCantidad> obtenerReglas() {
+        return service.obtenerTodos();
+    }
+
+    @PostMapping("/reglas")
+    public DescuentoPorCantidad crearRegla(@RequestBody DescuentoPorCantidad descuento) {
+        descuento.setId(null);
+        return guardar(descuento);
+    }
+
+    @PutMapping("/reglas/{id}")
+    public DescuentoPorCantidad actualizarRegla(@PathVariable Long id, @RequestBody DescuentoPorCantidad descuento) {
+        descuento.setId(id);
+        return guardar(descuento);
+    }
+
+    @DeleteMapping("/reglas/{id}")
+    public ResponseEntity<Void> eliminarRegla(@PathVariable Long id) {
+        try {
+            service.eliminar(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private DescuentoPorCantidad guardar(DescuentoPorCantidad descuento) {
+        try {
+            return service.guardar(descuento);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.example.backend.controllers;
 
 import com.example.backend.entities.Kart;
 import com.example.backend.services.KartService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -21,4 +22,15 @@ public class KartController {
     public List<Kart> obtenerKarts() {
         return kartService.obtenerTodos();
     }
+
+    @PostMapping
+    public ResponseEntity<Kart> crear(@RequestBody Kart kart) {
+        return ResponseEntity.ok(kartService.guardarKart(kart));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> eliminar(@PathVariable Long id) {
+        kartService.eliminarKart(id);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -2,7 +2,11 @@ package com.example.backend.controllers;
 
 import com.example.backend.services.RackSemanalService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -15,13 +19,21 @@ public class RackSemanalController {
     @Autowired
     private RackSemanalService rackSemanaService;
 
-    // 🔹 Consultar reservas por semana del año
+    // 🔹 Consultar reservas por semana del año (responde 304 si el ETag no cambió)
     @GetMapping
-    public List<Map<String, Object>> obtenerReservasPorSemana(
+    public ResponseEntity<List<Map<String, Object>>> obtenerReservasPorSemana(
             @RequestParam int anio,
-            @RequestParam int semana
+            @RequestParam int semana,
+            WebRequest request
     ) {
-        return rackSemanaService.obtenerReservasDeSemana(anio, semana);
+        RackSemanalService.VistaSemana vista = rackSemanaService.obtenerVistaSemana(anio, semana);
+        if (request.checkNotModified(vista.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(vista.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(vista.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(vista.reservas());
     }
 
 
@@ -1,13 +1,19 @@
 package com.example.backend.controllers;
 
 import com.example.backend.entities.Reportes;
+import com.example.backend.services.IngresoDiarioService;
+import com.example.backend.services.PrecalculoReportesService;
 import com.example.backend.services.ReportesService;
+import com.example.backend.services.VisitasMensualesService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -17,6 +23,15 @@ public class ReportesController {
     @Autowired
     private ReportesService reportesService;
 
+    @Autowired
+    private IngresoDiarioService ingresoDiarioService;
+
+    @Autowired
+    private VisitasMensualesService visitasMensualesService;
+
+    @Autowired
+    private PrecalculoReportesService precalculoReportesService;
+
     // 🔹 Ingresos por número de vueltas
     @GetMapping("/vueltas")
     public List<Reportes> ingresosPorVueltas(
@@ -43,4 +58,46 @@ public class ReportesController {
     ) {
         return reportesService.generarIngresosPorPersonas(inicio, fin);
     }
+
+    // 🔹 Guardar el reporte actual (vueltas, tiempo o personas) como instantánea
+    @PostMapping("/instantaneas")
+    public List<Reportes> guardarInstantanea(
+            @RequestParam String tipo,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin
+    ) {
+        try {
+            return reportesService.guardarInstantanea(tipo, inicio, fin);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // 🔹 Instantáneas guardadas de un tipo (INGRESOS_VUELTAS, INGRESOS_TIEMPO, INGRESOS_PERSONAS), más recientes primero
+    @GetMapping("/instantaneas")
+    public List<Reportes> obtenerInstantaneas(@RequestParam String tipo) {
+        return reportesService.obtenerInstantaneas(tipo);
+    }
+
+    // 🔹 Precalcular ahora los meses cerrados pendientes (normalmente corre de madrugada)
+    @PostMapping("/precalcular")
+    public Map<String, Object> precalcularMesesCerrados() {
+        return precalculoReportesService.precalcularMesesCerrados();
+    }
+
+    // 🔹 Recalcular (o solo verificar) los ingresos diarios desde las reservas
+    @PostMapping("/ingresos-diarios/reconstruir")
+    public Map<String, Object> reconstruirIngresosDiarios(
+            @RequestParam(defaultValue = "false") boolean soloVerificar
+    ) throws Exception {
+        return ingresoDiarioService.reconstruir(soloVerificar);
+    }
+
+    // 🔹 Comparar (y corregir) los contadores de visitas mensuales con las reservas
+    @PostMapping("/visitas-mensuales/conciliar")
+    public Map<String, Object> conciliarVisitasMensuales(
+            @RequestParam(defaultValue = "false") boolean soloVerificar
+    ) {
+        return visitasMensualesService.conciliar(soloVerificar);
+    }
 }
@@ -1,41 +1,39 @@
 package com.example.backend.controllers;
 
 import com.example.backend.entities.Reserva;
-import com.example.backend.repositories.ComprobanteRepository;
 import com.example.backend.repositories.ReservaRepository;
-import com.example.backend.services.RackSemanalService;
+import com.example.backend.services.DesglosePrecio;
 import com.example.backend.services.ReservaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/api/reservas")
 public class ReservaController {
 
+    static final int MAX_LIMITE = 1000;
+    static final int MAX_IMPORTACION = 5000;
+
     @Autowired
     private ReservaService reservaService;
 
     @Autowired
     private ReservaRepository reservaRepository;
 
-    @Autowired
-    private RackSemanalService rackSemanalService;
-
-    @Autowired
-    private ComprobanteRepository comprobanteRepository;
 
 
     @PostMapping("/crear")
@@ -43,17 +41,78 @@ public class ReservaController {
         return reservaService.crearReserva(reserva);
     }
 
+    // Carga masiva (torneos, empresas): devuelve el resultado de cada fila en el mismo orden
+    @PostMapping("/importar")
+    public List<Map<String, Object>> importarReservas(@RequestBody List<Reserva> reservas) {
+        if (reservas.size() > MAX_IMPORTACION) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden importar hasta " + MAX_IMPORTACION + " reservas por solicitud");
+        }
+        return reservaService.importarReservas(reservas);
+    }
+
+    // Paginado por llave: para la página siguiente se envía el id de la última reserva recibida
     @GetMapping("/todas")
-    public List<Reserva> obtenerReservas() {
-        return reservaService.obtenerTodas();
+    public List<Reserva> obtenerReservas(
+            @RequestParam(defaultValue = "0") Long despuesDeId,
+            @RequestParam(defaultValue = "100") int limite
+    ) {
+        return reservaService.obtenerPagina(despuesDeId, acotarLimite(limite));
     }
 
+    // Paginado por (fechaHoraReserva, id) de la última reserva recibida
     @GetMapping("/por-fecha")
     public List<Reserva> obtenerPorRango(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime despuesDeFecha,
+            @RequestParam(defaultValue = "0") Long despuesDeId,
+            @RequestParam(defaultValue = "100") int limite
+    ) {
+        return reservaService.obtenerPaginaEntreFechas(inicio, fin, despuesDeFecha, despuesDeId, acotarLimite(limite));
+    }
+
+    // Precio de una reserva sin crearla, para mostrarlo mientras se llena el formulario
+    @GetMapping("/cotizar")
+    public DesglosePrecio cotizar(
+            @RequestParam int vueltas,
+            @RequestParam int personas,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(required = false) String correoTitular
+    ) {
+        if (personas < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La reserva debe tener al menos una persona");
+        }
+        try {
+            return reservaService.cotizarReserva(vueltas, personas, fecha, correoTitular);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Inicios con karts suficientes para el grupo; la duración sale de la tarifa por vueltas
+    @GetMapping("/horarios-libres")
+    public List<Map<String, Object>> obtenerHorariosLibres(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam int vueltas,
+            @RequestParam int personas,
+            @RequestParam(defaultValue = "15") int paso
     ) {
-        return reservaRepository.findByFechaHoraReservaBetween(inicio, fin);
+        if (personas < 1 || paso < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Personas y paso deben ser mayores que cero");
+        }
+        try {
+            return reservaService.buscarHorariosLibres(fecha, vueltas, personas, paso);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarReservas() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(reservaService::exportarTodas);
     }
 
     @GetMapping("/{id}")
@@ -73,29 +132,18 @@ public class ReservaController {
 
     @DeleteMapping("/eliminar/{reservaId}")
     public ResponseEntity<Void> eliminarReserva(@PathVariable Long reservaId) {
-        Optional<Reserva> reservaOpt = reservaRepository.findById(reservaId);
-        if (reservaOpt.isEmpty()) {
+        // Elimina reserva y comprobante, revierte sus ingresos diarios y la quita de su rack semanal
+        if (!reservaService.eliminarReserva(reservaId)) {
             return ResponseEntity.notFound().build();
         }
 
-        Reserva reserva = reservaOpt.get();
-
-        // Eliminar comprobante asociado si existe
-        comprobanteRepository.findByReserva(reserva).ifPresent(comprobanteRepository::delete);
-
-        // Eliminar reserva
-        reservaRepository.deleteById(reservaId);
-
-        // Actualizar racks
-        try {
-            rackSemanalService.removerReservaDeTodosLosRacks(reservaId);
-        } catch (Exception e) {
-            System.err.println("Error actualizando RackSemanal: " + e.getMessage());
-        }
-
         return ResponseEntity.noContent().build();
     }
 
+    static int acotarLimite(int limite) {
+        return Math.min(Math.max(limite, 1), MAX_LIMITE);
+    }
+
     @GetMapping("/frecuencia-mensual")
     public Map<String, Object> obtenerReservasDelMes(
             @RequestParam Long clienteId,
@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @CrossOrigin(origins = "*")
@@ -70,4 +71,9 @@ public class TarifaController {
         return tarifaService.obtenerTarifaPorVueltas(numeroVueltas);
     }
 
+    @GetMapping("/catalogo/estadisticas")
+    public Map<String, Long> obtenerEstadisticasCatalogo() {
+        return tarifaService.obtenerEstadisticasCatalogo();
+    }
+
 }
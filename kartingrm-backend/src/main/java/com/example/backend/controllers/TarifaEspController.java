@@ -1,10 +1,13 @@
 package com.example.backend.controllers;
 
+import com.example.backend.entities.TarifaEsp;
 import com.example.backend.services.TarifaEspService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -22,4 +25,20 @@ public class TarifaEspController {
         return service.obtenerDescuento(clienteId, LocalDate.parse(fecha));
     }
 
+    @GetMapping("/fechas")
+    public List<TarifaEsp> obtenerFechasEspeciales() {
+        return service.obtenerFechasEspeciales();
+    }
+
+    @PostMapping("/fechas")
+    public TarifaEsp crearFechaEspecial(@RequestBody TarifaEsp tarifaEsp) {
+        return service.guardarFechaEspecial(tarifaEsp);
+    }
+
+    @DeleteMapping("/fechas/{id}")
+    public ResponseEntity<Void> eliminarFechaEspecial(@PathVariable Long id) {
+        service.eliminarFechaEspecial(id);
+        return ResponseEntity.noContent().build();
+    }
+
 }
@@ -12,7 +12,9 @@ import java.util.List;
 public class Comprobante {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia en bloques de 50 para que Hibernate pueda agrupar los inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comprobante_seq")
+    @SequenceGenerator(name = "comprobante_seq", sequenceName = "comprobante_seq", allocationSize = 50)
     private Long id;
 
     // Relación con la reserva
@@ -22,7 +24,8 @@ public class Comprobante {
 
     private String nombreTitular;
 
-    @ElementCollection
+    @Convert(converter = ListaTextosConverter.class)
+    @Column(length = 4000)
     private List<String> nombresParticipantes;
 
     // Detalles de costos
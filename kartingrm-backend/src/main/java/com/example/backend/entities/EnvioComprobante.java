@@ -0,0 +1,31 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Fila del outbox de correos: un envío del comprobante a un destinatario
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnvioComprobante {
+
+    @Id
+    // Secuencia en bloques de 50 para que Hibernate pueda agrupar los inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "envio_comprobante_seq")
+    @SequenceGenerator(name = "envio_comprobante_seq", sequenceName = "envio_comprobante_seq", allocationSize = 50)
+    private Long id;
+
+    private Long comprobanteId;
+    private String destinatario;
+
+    private String estado; // PENDIENTE, ENVIADO o FALLIDO
+    private int intentos;
+    private LocalDateTime proximoIntento;
+    private LocalDateTime fechaCreacion;
+
+    @Column(length = 1000)
+    private String ultimoError;
+}
@@ -0,0 +1,27 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Ingresos preagregados por día, número de vueltas y rango de personas
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_ingreso_diario_bucket",
+        columnNames = {"fecha", "numero_vueltas", "rango_personas"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngresoDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDate fecha;
+    private int numeroVueltas;
+    private String rangoPersonas;
+
+    private long totalIngresos;
+    private long cantidadReservas;
+}
@@ -0,0 +1,46 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guarda una lista de ids en una sola columna como texto separado por comas ("3,7,12"),
+ * en vez de una tabla hija con una fila por id. Funciona igual en PostgreSQL y H2.
+ */
+@Converter
+public class ListaIdsConverter implements AttributeConverter<List<Long>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<Long> ids) {
+        if (ids == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(ids.size() * 4);
+        for (Long id : ids) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(id);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public List<Long> convertToEntityAttribute(String columna) {
+        List<Long> ids = new ArrayList<>();
+        if (columna == null || columna.isEmpty()) {
+            return ids;
+        }
+        int desde = 0;
+        while (desde <= columna.length()) {
+            int coma = columna.indexOf(',', desde);
+            int hasta = coma < 0 ? columna.length() : coma;
+            ids.add(Long.parseLong(columna, desde, hasta, 10));
+            desde = hasta + 1;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.backend.entities;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guarda una lista de textos en una sola columna como arreglo JSON, para que los
+ * nombres con comas o comillas no rompan el formato.
+ */
+@Converter
+public class ListaTextosConverter implements AttributeConverter<List<String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> TIPO = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<String> textos) {
+        if (textos == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(textos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar la lista: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String columna) {
+        if (columna == null || columna.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return new ArrayList<>(MAPPER.readValue(columna, TIPO));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Columna de textos inválida: " + e.getMessage(), e);
+        }
+    }
+}
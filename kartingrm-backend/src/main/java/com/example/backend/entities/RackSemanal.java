@@ -7,6 +7,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_rack_semanal_anio_semana", columnList = "anio, numeroSemana"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -25,5 +26,8 @@ public class RackSemanal {
     private LocalDate fechaFin;
 
     @ElementCollection
+    @CollectionTable(name = "rack_semanal_ids_reservas", joinColumns = @JoinColumn(name = "rack_semanal_id"),
+            indexes = @Index(name = "idx_rack_semanal_ids_reservas", columnList = "ids_reservas"))
+    @Column(name = "ids_reservas")
     private List<Long> idsReservas;
 }
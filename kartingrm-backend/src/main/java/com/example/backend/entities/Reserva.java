@@ -7,13 +7,16 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_reserva_fecha_id", columnList = "fechaHoraReserva, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Reserva {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia en bloques de 50 para que Hibernate pueda agrupar los inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reserva_seq")
+    @SequenceGenerator(name = "reserva_seq", sequenceName = "reserva_seq", allocationSize = 50)
     private Long id;
 
     private Long clienteTitularId;
@@ -29,11 +32,13 @@ public class Reserva {
 
     private String estado;
 
-    @ElementCollection
+    // En una sola columna: se leen con la fila, sin consultas extra por reserva
+    @Convert(converter = ListaIdsConverter.class)
+    @Column(length = 4000)
     private List<Long> idsClientesReserva;
 
-
-    @ElementCollection
+    @Convert(converter = ListaIdsConverter.class)
+    @Column(length = 4000)
     private List<Long> idsKartsReservados;
 
     @Transient
@@ -0,0 +1,24 @@
+package com.example.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Reservas hechas por un cliente (como titular) en un mes, para el descuento por frecuencia
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_visita_mensual_cliente_mes",
+        columnNames = {"cliente_id", "anio", "mes"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitaMensual {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long clienteId;
+    private int anio;
+    private int mes;
+
+    private long cantidad;
+}
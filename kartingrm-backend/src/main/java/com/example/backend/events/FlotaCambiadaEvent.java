@@ -0,0 +1,5 @@
+package com.example.backend.events;
+
+// Se publica al agregar o eliminar un kart
+public record FlotaCambiadaEvent(Long kartId) {
+}
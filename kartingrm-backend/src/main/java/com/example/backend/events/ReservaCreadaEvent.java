@@ -0,0 +1,7 @@
+package com.example.backend.events;
+
+import com.example.backend.entities.Reserva;
+
+// Se publica dentro de la transacción de crearReserva, con la reserva ya guardada
+public record ReservaCreadaEvent(Reserva reserva) {
+}
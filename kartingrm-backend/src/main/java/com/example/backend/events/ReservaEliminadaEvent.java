@@ -0,0 +1,7 @@
+package com.example.backend.events;
+
+import com.example.backend.entities.Reserva;
+
+// Se publica dentro de la transacción de eliminarReserva, con la reserva ya borrada
+public record ReservaEliminadaEvent(Reserva reserva) {
+}
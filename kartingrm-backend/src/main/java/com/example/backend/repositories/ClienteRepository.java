@@ -1,14 +1,27 @@
 package com.example.backend.repositories;
 
 import com.example.backend.entities.Cliente;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     public Cliente findByRut(String rut);
     public Cliente findByEmail(String email);
+    public List<Cliente> findByEmailIn(Collection<String> emails);
 
+    public List<Cliente> findByIdGreaterThanOrderByIdAsc(Long despuesDeId, Limit limite);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM Cliente c ORDER BY c.id")
+    public Stream<Cliente> streamTodos();
 }
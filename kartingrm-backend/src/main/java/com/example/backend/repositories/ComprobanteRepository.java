@@ -2,11 +2,24 @@ package com.example.backend.repositories;
 
 import com.example.backend.entities.Comprobante;
 import com.example.backend.entities.Reserva;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ComprobanteRepository extends JpaRepository<Comprobante, Long> {
     Optional<Comprobante> findByReserva(Reserva reserva);
 
+    // Comprobantes de las reservas en [inicio, fin) con su reserva; hay que consumirlo dentro de una transacción
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT c FROM Comprobante c JOIN FETCH c.reserva r " +
+            "WHERE r.fechaHoraReserva >= :inicio AND r.fechaHoraReserva < :fin ORDER BY r.fechaHoraReserva, c.id")
+    Stream<Comprobante> streamEntre(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
 }
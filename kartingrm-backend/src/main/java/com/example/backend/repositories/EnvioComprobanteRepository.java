@@ -0,0 +1,14 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.EnvioComprobante;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EnvioComprobanteRepository extends JpaRepository<EnvioComprobante, Long> {
+    List<EnvioComprobante> findTop100ByEstadoAndProximoIntentoLessThanEqualOrderByIdAsc(String estado, LocalDateTime ahora);
+    long countByEstado(String estado);
+}
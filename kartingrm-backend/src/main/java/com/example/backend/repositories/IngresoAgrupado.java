@@ -0,0 +1,7 @@
+package com.example.backend.repositories;
+
+// Fila (clave, suma) devuelta por las consultas agregadas de reportes
+public interface IngresoAgrupado {
+    Integer getClave();
+    Long getTotal();
+}
@@ -0,0 +1,38 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.IngresoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface IngresoDiarioRepository extends JpaRepository<IngresoDiario, Long> {
+
+    List<IngresoDiario> findByFechaBetween(LocalDate desde, LocalDate hasta);
+
+    // Incremento atómico en la base de datos, sin leer y reescribir el total; 0 si el bucket no existe
+    @Modifying
+    @Query("UPDATE IngresoDiario i SET i.totalIngresos = i.totalIngresos + :monto, " +
+            "i.cantidadReservas = i.cantidadReservas + :reservas " +
+            "WHERE i.fecha = :fecha AND i.numeroVueltas = :numeroVueltas AND i.rangoPersonas = :rangoPersonas")
+    int sumar(@Param("fecha") LocalDate fecha, @Param("numeroVueltas") int numeroVueltas,
+              @Param("rangoPersonas") String rangoPersonas, @Param("monto") long monto,
+              @Param("reservas") long reservas);
+
+    @Modifying
+    @Query("DELETE FROM IngresoDiario i WHERE i.fecha BETWEEN :desde AND :hasta")
+    int eliminarEntre(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT i.numeroVueltas AS clave, SUM(i.totalIngresos) AS total FROM IngresoDiario i " +
+            "WHERE i.fecha BETWEEN :desde AND :hasta GROUP BY i.numeroVueltas")
+    List<IngresoAgrupado> sumarPorVueltas(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT i.rangoPersonas AS clave, SUM(i.totalIngresos) AS total FROM IngresoDiario i " +
+            "WHERE i.fecha BETWEEN :desde AND :hasta GROUP BY i.rangoPersonas")
+    List<IngresoPorRango> sumarPorRangoPersonas(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
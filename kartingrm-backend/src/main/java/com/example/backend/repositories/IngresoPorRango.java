@@ -0,0 +1,7 @@
+package com.example.backend.repositories;
+
+// Fila (rango, suma) devuelta por las consultas agregadas sobre rangos de personas
+public interface IngresoPorRango {
+    String getClave();
+    Long getTotal();
+}
@@ -2,8 +2,30 @@ package com.example.backend.repositories;
 
 import com.example.backend.entities.RackSemanal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface RackSemanalRepository extends JpaRepository<RackSemanal, Long> {
-    Optional<RackSemanal> findByAnioAndNumeroSemana(int anio, int numeroSemana);
-}
\ No newline at end of file
+    Optional<RackSemanal> findFirstByAnioAndNumeroSemanaOrderByIdAsc(int anio, int numeroSemana);
+
+    // Agrega una fila a la colección sin cargarla ni reescribirla
+    @Modifying
+    @Query(value = "INSERT INTO rack_semanal_ids_reservas (rack_semanal_id, ids_reservas) VALUES (:rackId, :reservaId)",
+            nativeQuery = true)
+    void agregarReserva(@Param("rackId") Long rackId, @Param("reservaId") Long reservaId);
+
+    // Solo toca los racks de la semana indicada
+    @Modifying
+    @Query(value = "DELETE FROM rack_semanal_ids_reservas WHERE ids_reservas = :reservaId AND rack_semanal_id IN " +
+            "(SELECT r.id FROM rack_semanal r WHERE r.anio = :anio AND r.numero_semana = :semana)",
+            nativeQuery = true)
+    int quitarReservaDeSemana(@Param("reservaId") Long reservaId, @Param("anio") int anio, @Param("semana") int semana);
+
+    // Búsqueda inversa por el índice de ids_reservas, cuando no se conoce la fecha
+    @Modifying
+    @Query(value = "DELETE FROM rack_semanal_ids_reservas WHERE ids_reservas = :reservaId", nativeQuery = true)
+    int quitarReserva(@Param("reservaId") Long reservaId);
+}
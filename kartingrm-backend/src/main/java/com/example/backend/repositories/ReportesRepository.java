@@ -3,6 +3,18 @@ package com.example.backend.repositories;
 
 import com.example.backend.entities.Reportes;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface ReportesRepository extends JpaRepository<Reportes, Long> {
+
+    List<Reportes> findByTipoOrderByFechaGeneracionDesc(String tipo);
+
+    @Modifying
+    @Query("DELETE FROM Reportes r WHERE r.fechaGeneracion < :limite")
+    int eliminarAnterioresA(@Param("limite") LocalDateTime limite);
 }
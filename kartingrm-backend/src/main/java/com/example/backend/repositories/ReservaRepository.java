@@ -2,13 +2,18 @@ package com.example.backend.repositories;
 
 
 import com.example.backend.entities.Reserva;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservaRepository extends JpaRepository<Reserva, Long> {
@@ -16,11 +21,54 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
     @Query("SELECT r FROM Reserva r WHERE r.fechaHoraReserva < :fin AND r.fechaHoraFin > :inicio")
     List<Reserva> findReservasSolapadas(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 
-    @Query("SELECT COUNT(r) FROM Reserva r WHERE r.clienteTitularId = :clienteId " +
-            "AND r.fechaHoraReserva BETWEEN :inicio AND :fin")
-    int contarReservasPorMes(@Param("clienteId") Long clienteId,
-                             @Param("inicio") LocalDateTime inicio,
-                             @Param("fin") LocalDateTime fin);
     List<Reserva> findByFechaHoraReservaBetween(LocalDateTime inicio, LocalDateTime fin);
 
+    @Query("SELECT r.numeroVueltas AS clave, SUM(r.precioFinal) AS total FROM Reserva r " +
+            "WHERE r.fechaHoraReserva BETWEEN :inicio AND :fin GROUP BY r.numeroVueltas")
+    List<IngresoAgrupado> sumarIngresosPorVueltas(@Param("inicio") LocalDateTime inicio,
+                                                  @Param("fin") LocalDateTime fin);
+
+    @Query("SELECT r.cantidadPersonas AS clave, SUM(r.precioFinal) AS total FROM Reserva r " +
+            "WHERE r.fechaHoraReserva BETWEEN :inicio AND :fin GROUP BY r.cantidadPersonas")
+    List<IngresoAgrupado> sumarIngresosPorPersonas(@Param("inicio") LocalDateTime inicio,
+                                                   @Param("fin") LocalDateTime fin);
+
+    // Filas (fechaHoraReserva, numeroVueltas, cantidadPersonas, precioFinal) para reconstruir los ingresos diarios
+    @Query("SELECT r.fechaHoraReserva, r.numeroVueltas, r.cantidadPersonas, r.precioFinal FROM Reserva r " +
+            "WHERE r.fechaHoraReserva >= :inicio AND r.fechaHoraReserva < :fin")
+    List<Object[]> findDatosIngresoEntre(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
+    // Filas (clienteTitularId, anio, mes, cantidad) para conciliar las visitas mensuales
+    @Query("SELECT r.clienteTitularId, EXTRACT(YEAR FROM r.fechaHoraReserva), EXTRACT(MONTH FROM r.fechaHoraReserva), " +
+            "COUNT(r) FROM Reserva r WHERE r.clienteTitularId IS NOT NULL " +
+            "GROUP BY r.clienteTitularId, EXTRACT(YEAR FROM r.fechaHoraReserva), EXTRACT(MONTH FROM r.fechaHoraReserva)")
+    List<Object[]> contarPorClienteYMes();
+
+    @Query("SELECT MIN(r.fechaHoraReserva) FROM Reserva r")
+    LocalDateTime findPrimeraFecha();
+
+    @Query("SELECT MAX(r.fechaHoraReserva) FROM Reserva r")
+    LocalDateTime findUltimaFecha();
+
+    // Filas (reservaId, inicio, fin, idsKarts) para construir el índice de disponibilidad
+    @Query("SELECT r.id, r.fechaHoraReserva, r.fechaHoraFin, r.idsKartsReservados FROM Reserva r " +
+            "WHERE r.fechaHoraFin > :desde")
+    List<Object[]> findKartsReservadosDesde(@Param("desde") LocalDateTime desde);
+
+    // Paginación por llave: la página siguiente parte después del último id entregado
+    List<Reserva> findByIdGreaterThanOrderByIdAsc(Long despuesDeId, Limit limite);
+
+    // Misma idea ordenando por (fecha, id); el id desempata reservas a la misma hora
+    @Query("SELECT r FROM Reserva r WHERE r.fechaHoraReserva BETWEEN :inicio AND :fin " +
+            "AND (r.fechaHoraReserva > :despuesDeFecha " +
+            "OR (r.fechaHoraReserva = :despuesDeFecha AND r.id > :despuesDeId)) " +
+            "ORDER BY r.fechaHoraReserva, r.id")
+    List<Reserva> findPaginaEntreFechas(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin,
+                                        @Param("despuesDeFecha") LocalDateTime despuesDeFecha,
+                                        @Param("despuesDeId") Long despuesDeId, Limit limite);
+
+    // Recorre la tabla completa con un cursor; hay que consumirlo dentro de una transacción
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r FROM Reserva r ORDER BY r.id")
+    Stream<Reserva> streamTodas();
 }
@@ -0,0 +1,28 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.VisitaMensual;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VisitaMensualRepository extends JpaRepository<VisitaMensual, Long> {
+
+    Optional<VisitaMensual> findByClienteIdAndAnioAndMes(Long clienteId, int anio, int mes);
+
+    // Incremento atómico en la base de datos; 0 si el contador del mes no existe
+    @Modifying
+    @Query("UPDATE VisitaMensual v SET v.cantidad = v.cantidad + :delta " +
+            "WHERE v.clienteId = :clienteId AND v.anio = :anio AND v.mes = :mes")
+    int sumar(@Param("clienteId") Long clienteId, @Param("anio") int anio, @Param("mes") int mes,
+              @Param("delta") long delta);
+
+    // Filas (clienteId, anio, mes, cantidad), una por contador
+    @Query("SELECT v.clienteId, v.anio, v.mes, v.cantidad FROM VisitaMensual v")
+    List<Object[]> listarContadores();
+}
@@ -0,0 +1,64 @@
+package com.example.backend.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU de comprobantes ya renderizados, acotada por la suma de bytes guardados
+ * y no por cantidad de entradas: un PDF con muchos participantes pesa más que uno chico.
+ */
+public class CacheComprobantes {
+
+    public record Clave(Long comprobanteId, String formato) {
+    }
+
+    private record Entrada(Long reservaId, byte[] contenido) {
+    }
+
+    private final long maxBytes;
+    private long bytesEnUso;
+
+    private final LinkedHashMap<Clave, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+
+    public CacheComprobantes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized byte[] obtener(Clave clave) {
+        Entrada entrada = entradas.get(clave);
+        return entrada != null ? entrada.contenido() : null;
+    }
+
+    public synchronized void guardar(Clave clave, Long reservaId, byte[] contenido) {
+        if (contenido.length > maxBytes) {
+            return;
+        }
+        Entrada anterior = entradas.put(clave, new Entrada(reservaId, contenido));
+        if (anterior != null) {
+            bytesEnUso -= anterior.contenido().length;
+        }
+        bytesEnUso += contenido.length;
+
+        Iterator<Entrada> masAntiguas = entradas.values().iterator();
+        while (bytesEnUso > maxBytes && masAntiguas.hasNext()) {
+            bytesEnUso -= masAntiguas.next().contenido().length;
+            masAntiguas.remove();
+        }
+    }
+
+    public synchronized void quitarReserva(Long reservaId) {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (entrada.reservaId().equals(reservaId)) {
+                bytesEnUso -= entrada.contenido().length;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> estadisticas() {
+        return Map.of("entradas", entradas.size(), "bytes", bytesEnUso, "maxBytes", maxBytes);
+    }
+}
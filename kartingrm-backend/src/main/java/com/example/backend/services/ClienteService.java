@@ -3,30 +3,114 @@ package com.example.backend.services;
 import com.example.backend.entities.Cliente;
 import com.example.backend.repositories.ClienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 public class ClienteService {
 
+    private static final int MAX_CLIENTES_EN_CACHE = 2000;
+
     @Autowired
     private ClienteRepository clienteRepository;
 
+    @Autowired
+    private ExportacionNdjsonService exportacionNdjsonService;
+
+    // Cache LRU acotada correo -> cliente para resolver participantes de reservas.
+    // Guarda copias desconectadas y entrega otra copia en cada lectura: nadie comparte la instancia
+    private final Map<String, Cliente> cachePorEmail = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cliente> mayor) {
+            return size() > MAX_CLIENTES_EN_CACHE;
+        }
+    };
+
+    // Cambia con cada invalidación; un cliente leído antes de una invalidación no se guarda
+    private long generacion;
+
     public Cliente buscarPorRut(String rut) {
         return clienteRepository.findByRut(rut);
     }
     public Cliente buscarPorEmail(String email) {
-        return clienteRepository.findByEmail(email);
+        Cliente cliente;
+        long generacionLeida;
+        synchronized (cachePorEmail) {
+            cliente = cachePorEmail.get(email);
+            generacionLeida = generacion;
+        }
+        if (cliente != null) {
+            return copiar(cliente);
+        }
+        cliente = clienteRepository.findByEmail(email);
+        if (cliente == null) {
+            return null;
+        }
+        synchronized (cachePorEmail) {
+            if (generacion == generacionLeida) {
+                cachePorEmail.put(email, copiar(cliente));
+            }
+        }
+        return copiar(cliente);
+    }
+
+    /**
+     * Resuelve varios correos con a lo más una consulta; los que no están en cache
+     * se buscan juntos. Los correos sin cliente no aparecen en el mapa resultante.
+     */
+    public Map<String, Cliente> buscarPorEmails(Collection<String> emails) {
+        Map<String, Cliente> encontrados = new HashMap<>();
+        Set<String> faltantes = new HashSet<>();
+        long generacionLeida;
+        synchronized (cachePorEmail) {
+            generacionLeida = generacion;
+            for (String email : emails) {
+                Cliente cliente = email != null ? cachePorEmail.get(email) : null;
+                if (cliente != null) {
+                    encontrados.put(email, copiar(cliente));
+                } else if (email != null) {
+                    faltantes.add(email);
+                }
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            List<Cliente> cargados = clienteRepository.findByEmailIn(faltantes);
+            synchronized (cachePorEmail) {
+                boolean vigente = generacion == generacionLeida;
+                for (Cliente cliente : cargados) {
+                    if (vigente) {
+                        cachePorEmail.put(cliente.getEmail(), copiar(cliente));
+                    }
+                    encontrados.put(cliente.getEmail(), copiar(cliente));
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    public Map<Long, Cliente> buscarPorIds(Collection<Long> ids) {
+        Map<Long, Cliente> clientes = new HashMap<>();
+        clienteRepository.findAllById(new HashSet<>(ids)).forEach(c -> clientes.put(c.getId(), c));
+        return clientes;
+    }
+
+    public List<Cliente> obtenerPagina(Long despuesDeId, int limite) {
+        return clienteRepository.findByIdGreaterThanOrderByIdAsc(despuesDeId, Limit.of(limite));
     }
-    public List<Cliente> obtenerTodos() {
-        return clienteRepository.findAll();
+
+    public void exportarTodos(OutputStream salida) throws IOException {
+        exportacionNdjsonService.exportar(clienteRepository::streamTodos, salida);
     }
 
     public Cliente guardarCliente(Cliente cliente) {
-        return clienteRepository.save(cliente);
+        Cliente guardado = clienteRepository.save(cliente);
+        invalidar(guardado.getId(), guardado.getEmail());
+        return guardado;
     }
 
     public Optional<Cliente> buscarPorId(Long id) {
@@ -35,6 +119,7 @@ public class ClienteService {
 
     public void eliminarCliente(Long id) {
         clienteRepository.deleteById(id);
+        invalidar(id, null);
     }
 
     public LocalDate obtenerFechaNacimiento(Long id) {
@@ -42,4 +127,19 @@ public class ClienteService {
                 .map(Cliente::getFechaNacimiento)
                 .orElseThrow(() -> new RuntimeException("Cliente no encontrado con ID: " + id));
     }
+
+    // Quita al cliente por id (pudo cambiar de correo) y por su correo actual
+    private void invalidar(Long id, String email) {
+        synchronized (cachePorEmail) {
+            generacion++;
+            cachePorEmail.values().removeIf(c -> Objects.equals(c.getId(), id));
+            if (email != null) {
+                cachePorEmail.remove(email);
+            }
+        }
+    }
+
+    private static Cliente copiar(Cliente c) {
+        return new Cliente(c.getId(), c.getRut(), c.getNombre(), c.getEmail(), c.getTelefono(), c.getFechaNacimiento());
+    }
 }
@@ -2,49 +2,125 @@ package com.example.backend.services;
 
 import com.example.backend.entities.Comprobante;
 import com.example.backend.entities.Reserva;
+import com.example.backend.events.ReservaEliminadaEvent;
+import com.example.backend.repositories.ComprobanteRepository;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.*;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.mail.internet.MimeMessage;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.io.ByteArrayOutputStream;
 import java.time.format.DateTimeFormatter;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Stream;
 
+/**
+ * Renderiza comprobantes en PDF y Excel y los envía por correo.
+ * Fuentes, encabezado de la tabla y anchos de columna se arman una sola vez; cada render
+ * solo llena los campos variables. Los bytes ya renderizados quedan en una cache LRU
+ * acotada por tamaño, que se limpia cuando se elimina la reserva.
+ */
 @Service
 public class ComprobanteService {
 
+    public static final String PDF = "pdf";
+    public static final String EXCEL = "excel";
+
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private ComprobanteRepository comprobanteRepository;
+
+    @Value("${kartingrm.comprobantes.cache-bytes:33554432}")
+    private long maxBytesCache;
+
+    private CacheComprobantes cache;
+
     private static final DateTimeFormatter FORMAT_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter FORMAT_HORA = DateTimeFormatter.ofPattern("HH:mm");
 
+    private static final com.lowagie.text.Font FUENTE_TITULO = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    private static final com.lowagie.text.Font FUENTE_TEXTO = FontFactory.getFont(FontFactory.HELVETICA, 12);
+
+    // Solo se copia, nunca se modifica
+    private static final PdfPTable PLANTILLA_TABLA = new PdfPTable(5);
+
+    static {
+        PLANTILLA_TABLA.setWidthPercentage(100);
+        Stream.of("Tarifa base", "Descuento aplicado (%)", "Subtotal", "IVA", "Total")
+                .forEach(col -> PLANTILLA_TABLA.addCell(new PdfPCell(new Phrase(col))));
+    }
+
+    private static final String[] COLUMNAS_EXCEL = {"Tarifa Base", "Descuento (%)", "Subtotal", "IVA", "Total"};
+
+    // En 1/256 de carácter; reemplaza a autoSizeColumn, que mide cada celda con AWT
+    private static final int[] ANCHOS_EXCEL = {14 * 256, 15 * 256, 12 * 256, 10 * 256, 12 * 256};
+
+    @PostConstruct
+    public void iniciarCache() {
+        cache = new CacheComprobantes(maxBytesCache);
+    }
+
+    public Optional<Comprobante> buscar(Long comprobanteId) {
+        return comprobanteRepository.findById(comprobanteId);
+    }
+
+    public byte[] obtenerPdf(Comprobante comprobante) throws Exception {
+        return obtener(comprobante, PDF);
+    }
+
+    public byte[] obtenerExcel(Comprobante comprobante) throws Exception {
+        return obtener(comprobante, EXCEL);
+    }
+
+    public Map<String, Object> estadisticasCache() {
+        return cache.estadisticas();
+    }
+
+    // Un comprobante no cambia después de creado, así que basta con olvidarlo al eliminar la reserva
+    @TransactionalEventListener(fallbackExecution = true)
+    public void olvidarComprobante(ReservaEliminadaEvent evento) {
+        cache.quitarReserva(evento.reserva().getId());
+    }
+
+    private byte[] obtener(Comprobante comprobante, String formato) throws Exception {
+        CacheComprobantes.Clave clave = new CacheComprobantes.Clave(comprobante.getId(), formato);
+        byte[] contenido = cache.obtener(clave);
+        if (contenido == null) {
+            contenido = PDF.equals(formato) ? generarPdf(comprobante) : generarExcel(comprobante);
+            if (comprobante.getId() != null) {
+                cache.guardar(clave, comprobante.getReserva().getId(), contenido);
+            }
+        }
+        return contenido;
+    }
+
     public byte[] generarPdf(Comprobante comprobante) throws Exception {
         Document doc = new Document();
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(4096);
         PdfWriter.getInstance(doc, baos);
         doc.open();
 
-        com.lowagie.text.Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
         Reserva reserva = comprobante.getReserva();
 
         String fechaFormato = reserva.getFechaHoraReserva().toLocalDate().format(FORMAT_FECHA);
         String horaInicio = reserva.getFechaHoraReserva().toLocalTime().format(FORMAT_HORA);
         String horaFin = reserva.getFechaHoraFin().toLocalTime().format(FORMAT_HORA);
 
-        doc.add(new Paragraph("Comprobante de Reserva", titleFont));
+        doc.add(new Paragraph("Comprobante de Reserva", FUENTE_TITULO));
         doc.add(new Paragraph("Reserva #" + reserva.getId()));
         doc.add(new Paragraph("Fecha: " + fechaFormato));
         doc.add(new Paragraph("Horario: " + horaInicio + " - " + horaFin));
@@ -53,11 +129,7 @@ public class ComprobanteService {
         doc.add(new Paragraph("Cantidad de personas: " + reserva.getCantidadPersonas()));
         doc.add(new Paragraph(" "));
 
-        PdfPTable table = new PdfPTable(5);
-        table.setWidthPercentage(100);
-        Stream.of("Tarifa base", "Descuento aplicado (%)", "Subtotal", "IVA", "Total")
-                .forEach(col -> table.addCell(new PdfPCell(new Phrase(col))));
-
+        PdfPTable table = new PdfPTable(PLANTILLA_TABLA);
         table.addCell(String.valueOf(comprobante.getTarifaBase()));
         table.addCell(String.valueOf(comprobante.getDescuentoAplicado()));
         table.addCell(String.valueOf(comprobante.getSubtotal()));
@@ -67,56 +139,36 @@ public class ComprobanteService {
         doc.add(table);
 
         doc.add(new Paragraph(" "));
-        doc.add(new Paragraph("Gracias por reservar con nosotros.",
-                FontFactory.getFont(FontFactory.HELVETICA, 12)));
+        doc.add(new Paragraph("Gracias por reservar con nosotros.", FUENTE_TEXTO));
 
         doc.close();
         return baos.toByteArray();
     }
 
     public byte[] generarExcel(Comprobante comprobante) throws Exception {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Comprobante");
-
-        Row header = sheet.createRow(0);
-        String[] columnas = {"Tarifa Base", "Descuento (%)", "Subtotal", "IVA", "Total"};
-        for (int i = 0; i < columnas.length; i++) {
-            Cell cell = header.createCell(i);
-            cell.setCellValue(columnas[i]);
-        }
-
-        Row row = sheet.createRow(1);
-        row.createCell(0).setCellValue(comprobante.getTarifaBase());
-        row.createCell(1).setCellValue(comprobante.getDescuentoAplicado());
-        row.createCell(2).setCellValue(comprobante.getSubtotal());
-        row.createCell(3).setCellValue(comprobante.getIva());
-        row.createCell(4).setCellValue(comprobante.getTotal());
-
-        for (int i = 0; i < columnas.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        workbook.write(baos);
-        workbook.close();
-        return baos.toByteArray();
-    }
-
-    public void enviarComprobantePorEmail(Comprobante comprobante) throws Exception {
-        byte[] pdf = generarPdf(comprobante);
-        Reserva reserva = comprobante.getReserva();
-
-        Set<String> correos = new HashSet<>();
-        correos.add(reserva.getCorreoTitular());
-        correos.addAll(reserva.getCorreosParticipantes());
-
-        for (String email : correos) {
-            enviarCorreo(email, pdf, reserva.getId());
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Comprobante");
+
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < COLUMNAS_EXCEL.length; i++) {
+                header.createCell(i).setCellValue(COLUMNAS_EXCEL[i]);
+                sheet.setColumnWidth(i, ANCHOS_EXCEL[i]);
+            }
+
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue(comprobante.getTarifaBase());
+            row.createCell(1).setCellValue(comprobante.getDescuentoAplicado());
+            row.createCell(2).setCellValue(comprobante.getSubtotal());
+            row.createCell(3).setCellValue(comprobante.getIva());
+            row.createCell(4).setCellValue(comprobante.getTotal());
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(8192);
+            workbook.write(baos);
+            return baos.toByteArray();
         }
-
     }
 
-    private void enviarCorreo(String destinatario, byte[] pdf, Long reservaId) throws Exception {
+    public void enviarCorreo(String destinatario, byte[] pdf, Long reservaId) throws Exception {
         MimeMessage mensaje = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(mensaje, true);
 
@@ -0,0 +1,63 @@
+package com.example.backend.services;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker simple para el servidor SMTP.
+ * Tras {@code umbralFallos} fallos seguidos se abre y deja de intentar durante
+ * {@code tiempoAbierto}; luego deja pasar un único intento de prueba.
+ */
+public class CortocircuitoCorreo {
+
+    enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final int umbralFallos;
+    private final long tiempoAbiertoNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoHasta;
+
+    public CortocircuitoCorreo(int umbralFallos, Duration tiempoAbierto) {
+        this.umbralFallos = umbralFallos;
+        this.tiempoAbiertoNanos = tiempoAbierto.toNanos();
+    }
+
+    // No cambia el estado; sirve para no despachar trabajo mientras está abierto
+    public synchronized boolean estaAbierto() {
+        return estado == Estado.ABIERTO && System.nanoTime() - abiertoHasta < 0;
+    }
+
+    public synchronized boolean permiteIntento() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (System.nanoTime() - abiertoHasta >= 0) {
+                    estado = Estado.SEMIABIERTO;
+                    return true;
+                }
+                return false;
+            default:
+                // Ya hay un intento de prueba en curso
+                return false;
+        }
+    }
+
+    public synchronized void registrarExito() {
+        fallosSeguidos = 0;
+        estado = Estado.CERRADO;
+    }
+
+    public synchronized void registrarFallo() {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= umbralFallos) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = System.nanoTime() + tiempoAbiertoNanos;
+        }
+    }
+
+    synchronized Estado getEstado() {
+        return estado;
+    }
+}
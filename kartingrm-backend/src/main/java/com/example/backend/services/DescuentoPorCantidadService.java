@@ -2,23 +2,64 @@ package com.example.backend.services;
 
 import com.example.backend.entities.DescuentoPorCantidad;
 import com.example.backend.repositories.DescuentoPorCantidadRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
 @Service
 public class DescuentoPorCantidadService {
 
     @Autowired
     private DescuentoPorCantidadRepository repository;
 
+    private volatile TablaDescuentos tabla = TablaDescuentos.VACIA;
+
+    @PostConstruct
+    public void recompilar() {
+        tabla = TablaDescuentos.desdeGuardados("descuento por cantidad", rangos(repository.findAll()));
+    }
+
     public int calcularDescuentoPorCantidad(int cantidadPersonas) {
-        return repository.findAll().stream()
-                .filter(d -> cantidadPersonas >= d.getMinPersonas() && cantidadPersonas <= d.getMaxPersonas())
-                .mapToInt(DescuentoPorCantidad::getPorcentaje)
-                .findFirst()
-                .orElse(0);
+        return tabla.buscar(cantidadPersonas);
     }
 
+    public List<DescuentoPorCantidad> obtenerTodos() {
+        return repository.findAll();
+    }
 
-}
+    // Valida la tabla resultante antes de escribir, para no dejar reglas inconsistentes
+    public synchronized DescuentoPorCantidad guardar(DescuentoPorCantidad descuento) {
+        List<DescuentoPorCantidad> resultantes = Stream.concat(
+                repository.findAll().stream().filter(d -> !Objects.equals(d.getId(), descuento.getId())),
+                Stream.of(descuento)).toList();
+        compilar(resultantes);
+
+        DescuentoPorCantidad guardado = repository.save(descuento);
+        recompilar();
+        return guardado;
+    }
 
+    // Si las reglas guardadas ya son inválidas se permite eliminar, para poder corregirlas
+    public synchronized void eliminar(Long id) {
+        if (tabla.esValida()) {
+            compilar(repository.findAll().stream().filter(d -> !d.getId().equals(id)).toList());
+        }
+        repository.deleteById(id);
+        recompilar();
+    }
+
+    private TablaDescuentos compilar(List<DescuentoPorCantidad> descuentos) {
+        return new TablaDescuentos(rangos(descuentos));
+    }
+
+    private List<TablaDescuentos.Rango> rangos(List<DescuentoPorCantidad> descuentos) {
+        return descuentos.stream()
+                .map(d -> new TablaDescuentos.Rango(d.getMinPersonas(), d.getMaxPersonas(), d.getPorcentaje()))
+                .toList();
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.example.backend.services;
+
+/**
+ * Precio completo de una reserva, calculado una sola vez por {@link MotorPrecios}.
+ * La reserva guarda {@code precioBasePorPersona} y {@code total}; el comprobante el resto.
+ * Montos en pesos enteros; descuentos en porcentaje.
+ */
+public record DesglosePrecio(
+        int numeroVueltas,
+        int duracionMinutos,
+        int cantidadPersonas,
+        int precioBasePorPersona,
+        int tarifaBase,
+        int descuentoEspecial,
+        int descuentoPorCantidad,
+        int descuentoPorFrecuencia,
+        int descuentoAplicado,
+        int subtotal,
+        int iva,
+        int total) {
+}
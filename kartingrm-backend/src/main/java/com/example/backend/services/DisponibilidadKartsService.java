@@ -0,0 +1,364 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Kart;
+import com.example.backend.entities.Reserva;
+import com.example.backend.events.FlotaCambiadaEvent;
+import com.example.backend.repositories.ReservaRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Índice en memoria de ocupación de karts.
+ * Mantiene una línea de tiempo por kart (inicio -> intervalo) para responder
+ * qué karts están libres en un rango sin ir a la base de datos.
+ *
+ * La asignación se serializa con cerrojos por franja horaria: dos reservas que se
+ * solapan comparten al menos una franja y por lo tanto un cerrojo, mientras que
+ * reservas en ventanas distintas no se bloquean entre sí.
+ *
+ * La flota se recarga cuando se agrega o elimina un kart, y cada madrugada se eliminan
+ * los intervalos que ya terminaron, así que el índice solo guarda desde el día anterior.
+ */
+@Service
+@DependsOn("secuenciasService")
+public class DisponibilidadKartsService {
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private KartService kartService;
+
+    // Flota ordenada por id, se reemplaza completa al recargar
+    private volatile List<Long> idsKarts = List.of();
+
+    // Desde este instante el índice tiene todas las reservas; antes se consulta la BD
+    private volatile LocalDateTime horizonte = LocalDateTime.MIN;
+
+    private final Map<Long, ConcurrentSkipListMap<LocalDateTime, Intervalo>> lineasPorKart = new ConcurrentHashMap<>();
+
+    private final Map<Long, Intervalo> intervalosPorReserva = new ConcurrentHashMap<>();
+
+    private static final int MINUTOS_POR_FRANJA = 15;
+    private static final int NUMERO_CERROJOS = 64;
+
+    private final ReentrantLock[] cerrojos = new ReentrantLock[NUMERO_CERROJOS];
+
+    // Claves negativas para reclamos aún no confirmados con el id de la reserva
+    private final AtomicLong clavesProvisionales = new AtomicLong();
+
+    public DisponibilidadKartsService() {
+        for (int i = 0; i < NUMERO_CERROJOS; i++) {
+            cerrojos[i] = new ReentrantLock();
+        }
+    }
+
+    public record Intervalo(Long clave, LocalDateTime inicio, LocalDateTime fin, List<Long> idsKarts) {
+    }
+
+    @PostConstruct
+    public void cargar() {
+        recargarFlota();
+
+        LocalDateTime desde = LocalDate.now().atStartOfDay();
+        lineasPorKart.clear();
+        intervalosPorReserva.clear();
+        for (Object[] fila : reservaRepository.findKartsReservadosDesde(desde)) {
+            @SuppressWarnings("unchecked")
+            List<Long> karts = (List<Long>) fila[3];
+            if (karts != null && !karts.isEmpty()) {
+                registrar(new Intervalo((Long) fila[0], (LocalDateTime) fila[1], (LocalDateTime) fila[2],
+                        List.copyOf(karts)));
+            }
+        }
+        horizonte = desde;
+    }
+
+    public void recargarFlota() {
+        idsKarts = kartService.obtenerTodos().stream()
+                .map(Kart::getId)
+                .sorted()
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarFlota(FlotaCambiadaEvent evento) {
+        recargarFlota();
+    }
+
+    /**
+     * Adelanta el horizonte al inicio de ayer y elimina los intervalos que terminan antes.
+     * Las consultas que empiezan antes del horizonte ya van a la base de datos, así que esos
+     * intervalos no se vuelven a usar. Toma todos los cerrojos para que ningún reclamo vea
+     * el horizonte viejo con los intervalos ya eliminados. Devuelve cuántos se eliminaron.
+     * También recarga la flota, por si cambió fuera de la aplicación.
+     */
+    @Scheduled(cron = "${kartingrm.disponibilidad.poda-cron:0 15 3 * * *}")
+    public int podarPasado() {
+        recargarFlota();
+        LocalDateTime corte = LocalDate.now().minusDays(1).atStartOfDay();
+        for (ReentrantLock cerrojo : cerrojos) {
+            cerrojo.lock();
+        }
+        try {
+            if (!corte.isAfter(horizonte)) {
+                return 0;
+            }
+            horizonte = corte;
+            // La clave del mapa es el id de la reserva, no la clave provisional del intervalo
+            int eliminados = 0;
+            for (Iterator<Intervalo> it = intervalosPorReserva.values().iterator(); it.hasNext(); ) {
+                Intervalo intervalo = it.next();
+                if (!intervalo.fin().isAfter(corte)) {
+                    it.remove();
+                    quitarDeLineas(intervalo);
+                    eliminados++;
+                }
+            }
+            lineasPorKart.values().removeIf(Map::isEmpty);
+            return eliminados;
+        } finally {
+            for (int i = cerrojos.length - 1; i >= 0; i--) {
+                cerrojos[i].unlock();
+            }
+        }
+    }
+
+    int intervalosEnMemoria() {
+        return intervalosPorReserva.size();
+    }
+
+    /**
+     * Devuelve hasta {@code cantidad} karts libres en [inicio, fin), en orden de id.
+     * Si no alcanzan, la lista resultante es más corta que lo pedido.
+     */
+    public List<Long> buscarKartsLibres(LocalDateTime inicio, LocalDateTime fin, int cantidad) {
+        Set<Long> ocupadosAntesDelHorizonte = inicio.isBefore(horizonte)
+                ? ocupadosEnBaseDeDatos(inicio, fin)
+                : Set.of();
+
+        List<Long> libres = new ArrayList<>(cantidad);
+        for (Long kartId : idsKarts) {
+            if (libres.size() == cantidad) {
+                break;
+            }
+            if (!ocupadosAntesDelHorizonte.contains(kartId) && estaLibre(kartId, inicio, fin)) {
+                libres.add(kartId);
+            }
+        }
+        return libres;
+    }
+
+    /**
+     * Horarios de inicio entre {@code apertura} y {@code cierre} (cada {@code pasoMinutos})
+     * en que hay al menos {@code cantidad} karts libres durante {@code duracionMinutos}.
+     * Cada intervalo ocupado [s, e) de un kart prohíbe los inicios en (s - duración, e);
+     * esos rangos se unen por kart y se suman en un arreglo de diferencias por minuto,
+     * así que el costo es una pasada por las reservas del día más una por los minutos.
+     * Devuelve un mapa ordenado inicio -> karts libres.
+     */
+    public SortedMap<LocalDateTime, Integer> buscarHorariosLibres(LocalDateTime apertura, LocalDateTime cierre,
+                                                                   int duracionMinutos, int cantidad, int pasoMinutos) {
+        int ventana = (int) Duration.between(apertura, cierre).toMinutes();
+        int ultimoInicio = ventana - duracionMinutos;
+        SortedMap<LocalDateTime, Integer> libres = new TreeMap<>();
+        if (ultimoInicio < 0 || pasoMinutos <= 0) {
+            return libres;
+        }
+
+        // bloqueados[t] = karts que no pueden empezar en el minuto t
+        int[] diferencias = new int[ultimoInicio + 2];
+        for (List<Intervalo> ocupados : ocupadosPorKart(apertura, cierre).values()) {
+            int desde = -1;
+            int hasta = -1;
+            for (Intervalo intervalo : ocupados) {
+                int a = Math.max(0, minutosDesde(apertura, intervalo.inicio(), false) - duracionMinutos + 1);
+                int b = Math.min(ultimoInicio + 1, minutosDesde(apertura, intervalo.fin(), true));
+                if (a >= b) {
+                    continue;
+                }
+                if (a <= hasta) {
+                    hasta = Math.max(hasta, b);
+                } else {
+                    if (desde >= 0) {
+                        diferencias[desde]++;
+                        diferencias[hasta]--;
+                    }
+                    desde = a;
+                    hasta = b;
+                }
+            }
+            if (desde >= 0) {
+                diferencias[desde]++;
+                diferencias[hasta]--;
+            }
+        }
+
+        int flota = idsKarts.size();
+        int bloqueados = 0;
+        for (int t = 0; t <= ultimoInicio; t++) {
+            bloqueados += diferencias[t];
+            if (t % pasoMinutos == 0 && flota - bloqueados >= cantidad) {
+                libres.put(apertura.plusMinutes(t), flota - bloqueados);
+            }
+        }
+        return libres;
+    }
+
+    // Intervalos de cada kart que se cruzan con [inicio, fin), ordenados por inicio
+    private Map<Long, List<Intervalo>> ocupadosPorKart(LocalDateTime inicio, LocalDateTime fin) {
+        Map<Long, List<Intervalo>> porKart = new HashMap<>();
+        if (inicio.isBefore(horizonte)) {
+            for (Reserva r : reservaRepository.findReservasSolapadas(inicio, fin)) {
+                Intervalo intervalo = new Intervalo(r.getId(), r.getFechaHoraReserva(), r.getFechaHoraFin(),
+                        r.getIdsKartsReservados());
+                r.getIdsKartsReservados().forEach(k -> porKart.computeIfAbsent(k, x -> new ArrayList<>()).add(intervalo));
+            }
+            porKart.values().forEach(l -> l.sort(Comparator.comparing(Intervalo::inicio)));
+            return porKart;
+        }
+        for (Long kartId : idsKarts) {
+            ConcurrentSkipListMap<LocalDateTime, Intervalo> linea = lineasPorKart.get(kartId);
+            if (linea == null) {
+                continue;
+            }
+            List<Intervalo> ocupados = new ArrayList<>();
+            Map.Entry<LocalDateTime, Intervalo> anterior = linea.lowerEntry(inicio);
+            if (anterior != null && anterior.getValue().fin().isAfter(inicio)) {
+                ocupados.add(anterior.getValue());
+            }
+            ocupados.addAll(linea.subMap(inicio, true, fin, false).values());
+            if (!ocupados.isEmpty()) {
+                porKart.put(kartId, ocupados);
+            }
+        }
+        return porKart;
+    }
+
+    private static int minutosDesde(LocalDateTime origen, LocalDateTime instante, boolean haciaArriba) {
+        long segundos = Duration.between(origen, instante).getSeconds();
+        return (int) (haciaArriba ? -Math.floorDiv(-segundos, 60) : Math.floorDiv(segundos, 60));
+    }
+
+    /**
+     * Busca y aparta de forma atómica {@code cantidad} karts libres en [inicio, fin).
+     * Devuelve null si no alcanzan. Si hay una transacción activa y termina en rollback,
+     * el reclamo se descarta solo; en otro caso hay que confirmarlo o descartarlo.
+     */
+    public Intervalo reclamarKarts(LocalDateTime inicio, LocalDateTime fin, int cantidad) {
+        int[] indices = cerrojosDe(inicio, fin);
+        for (int i : indices) {
+            cerrojos[i].lock();
+        }
+        Intervalo reclamo;
+        try {
+            List<Long> libres = buscarKartsLibres(inicio, fin, cantidad);
+            if (libres.size() < cantidad) {
+                return null;
+            }
+            reclamo = new Intervalo(-clavesProvisionales.incrementAndGet(), inicio, fin, List.copyOf(libres));
+            registrar(reclamo);
+        } finally {
+            for (int j = indices.length - 1; j >= 0; j--) {
+                cerrojos[indices[j]].unlock();
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        descartar(reclamo);
+                    }
+                }
+            });
+        }
+        return reclamo;
+    }
+
+    public void confirmar(Intervalo reclamo, Long reservaId) {
+        intervalosPorReserva.remove(reclamo.clave());
+        intervalosPorReserva.put(reservaId, reclamo);
+    }
+
+    public void descartar(Intervalo reclamo) {
+        quitarDeLineas(reclamo);
+        // Puede estar ya confirmado con el id real; es un camino raro, basta recorrer
+        intervalosPorReserva.values().removeIf(i -> i == reclamo);
+    }
+
+    public void liberar(Long reservaId) {
+        Intervalo intervalo = intervalosPorReserva.remove(reservaId);
+        if (intervalo != null) {
+            quitarDeLineas(intervalo);
+        }
+    }
+
+    private void quitarDeLineas(Intervalo intervalo) {
+        for (Long kartId : intervalo.idsKarts()) {
+            ConcurrentSkipListMap<LocalDateTime, Intervalo> linea = lineasPorKart.get(kartId);
+            if (linea != null) {
+                linea.remove(intervalo.inicio(), intervalo);
+            }
+        }
+    }
+
+    private void registrar(Intervalo intervalo) {
+        for (Long kartId : intervalo.idsKarts()) {
+            lineasPorKart.computeIfAbsent(kartId, id -> new ConcurrentSkipListMap<>())
+                    .put(intervalo.inicio(), intervalo);
+        }
+        intervalosPorReserva.put(intervalo.clave(), intervalo);
+    }
+
+    // Índices de cerrojo ordenados y sin repetir, para tomarlos siempre en el mismo orden
+    private int[] cerrojosDe(LocalDateTime inicio, LocalDateTime fin) {
+        long primera = Math.floorDiv(inicio.toEpochSecond(ZoneOffset.UTC) / 60, MINUTOS_POR_FRANJA);
+        long ultima = Math.floorDiv((fin.toEpochSecond(ZoneOffset.UTC) - 1) / 60, MINUTOS_POR_FRANJA);
+        if (ultima - primera + 1 >= NUMERO_CERROJOS) {
+            int[] todos = new int[NUMERO_CERROJOS];
+            Arrays.setAll(todos, i -> i);
+            return todos;
+        }
+        BitSet usados = new BitSet(NUMERO_CERROJOS);
+        for (long franja = primera; franja <= ultima; franja++) {
+            usados.set((int) Math.floorMod(franja, NUMERO_CERROJOS));
+        }
+        return usados.stream().toArray();
+    }
+
+    // Un kart nunca tiene intervalos solapados, así que basta mirar el último que empieza antes de fin
+    private boolean estaLibre(Long kartId, LocalDateTime inicio, LocalDateTime fin) {
+        ConcurrentSkipListMap<LocalDateTime, Intervalo> linea = lineasPorKart.get(kartId);
+        if (linea == null) {
+            return true;
+        }
+        Map.Entry<LocalDateTime, Intervalo> anterior = linea.lowerEntry(fin);
+        return anterior == null || !anterior.getValue().fin().isAfter(inicio);
+    }
+
+    private Set<Long> ocupadosEnBaseDeDatos(LocalDateTime inicio, LocalDateTime fin) {
+        Set<Long> ocupados = new HashSet<>();
+        for (Reserva r : reservaRepository.findReservasSolapadas(inicio, fin)) {
+            ocupados.addAll(r.getIdsKartsReservados());
+        }
+        return ocupados;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Comprobante;
+import com.example.backend.entities.EnvioComprobante;
+import com.example.backend.repositories.ComprobanteRepository;
+import com.example.backend.repositories.EnvioComprobanteRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envío de comprobantes por correo a partir del outbox {@link EnvioComprobante}.
+ * La reserva solo escribe las filas pendientes en su transacción; un pool acotado
+ * genera el PDF y lo envía, reintentando con espera exponencial.
+ */
+@Service
+public class EnvioComprobantesService {
+
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String ENVIADO = "ENVIADO";
+    public static final String FALLIDO = "FALLIDO";
+
+    @Autowired
+    private EnvioComprobanteRepository envioRepository;
+
+    @Autowired
+    private ComprobanteRepository comprobanteRepository;
+
+    @Autowired
+    private ComprobanteService comprobanteService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${kartingrm.correo.hilos:4}")
+    private int hilos;
+
+    @Value("${kartingrm.correo.max-intentos:5}")
+    private int maxIntentos;
+
+    @Value("${kartingrm.correo.espera-inicial-segundos:30}")
+    private long esperaInicialSegundos;
+
+    private final CortocircuitoCorreo cortocircuito = new CortocircuitoCorreo(5, Duration.ofMinutes(1));
+
+    // Envíos ya entregados al pool, para no despacharlos dos veces
+    private final Set<Long> enCurso = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor pool;
+
+    @PostConstruct
+    public void iniciar() {
+        AtomicInteger contador = new AtomicInteger();
+        pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hilos * 25),
+                r -> {
+                    Thread t = new Thread(r, "envio-comprobantes-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        Gauge.builder("kartingrm.correo.cola", pool, p -> p.getQueue().size())
+                .description("Envíos esperando un hilo del pool").register(meterRegistry);
+        Gauge.builder("kartingrm.correo.en_curso", enCurso, Set::size)
+                .description("Envíos entregados al pool y aún sin terminar").register(meterRegistry);
+        Gauge.builder("kartingrm.correo.pendientes", this, EnvioComprobantesService::contarPendientes)
+                .description("Filas PENDIENTE en el outbox").register(meterRegistry);
+        Gauge.builder("kartingrm.correo.cortocircuito.abierto", cortocircuito, c -> c.estaAbierto() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdown();
+    }
+
+    public void encolar(Comprobante comprobante, Collection<String> destinatarios) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<EnvioComprobante> envios = destinatarios.stream()
+                .distinct()
+                .map(d -> new EnvioComprobante(null, comprobante.getId(), d, PENDIENTE, 0, ahora, ahora, null))
+                .toList();
+        envioRepository.saveAll(envios);
+    }
+
+    @Scheduled(fixedDelayString = "${kartingrm.correo.intervalo-ms:5000}")
+    public void procesarPendientes() {
+        if (cortocircuito.estaAbierto()) {
+            return;
+        }
+        List<EnvioComprobante> pendientes = envioRepository
+                .findTop100ByEstadoAndProximoIntentoLessThanEqualOrderByIdAsc(PENDIENTE, LocalDateTime.now());
+
+        for (EnvioComprobante envio : pendientes) {
+            if (!enCurso.add(envio.getId())) {
+                continue;
+            }
+            try {
+                pool.execute(() -> enviar(envio));
+            } catch (RejectedExecutionException e) {
+                // Pool lleno: el resto queda para la próxima pasada
+                enCurso.remove(envio.getId());
+                break;
+            }
+        }
+    }
+
+    public long contarPendientes() {
+        return envioRepository.countByEstado(PENDIENTE);
+    }
+
+    // Solo el envío SMTP cuenta para el cortocircuito; package-private para los tests
+    void enviar(EnvioComprobante envio) {
+        try {
+            if (cortocircuito.estaAbierto()) {
+                return;
+            }
+            Comprobante comprobante = comprobanteRepository.findById(envio.getComprobanteId())
+                    .orElse(null);
+            if (comprobante == null) {
+                envio.setEstado(FALLIDO);
+                envio.setUltimoError("El comprobante ya no existe");
+            } else if (!intentarEnvio(envio, comprobante)) {
+                return;
+            }
+            envioRepository.save(envio);
+        } catch (Exception e) {
+            System.err.println("Error al actualizar envío de comprobante " + envio.getId() + ": " + e.getMessage());
+        } finally {
+            enCurso.remove(envio.getId());
+        }
+    }
+
+    // Devuelve false si el cortocircuito no dejó pasar el intento y no hay nada que guardar
+    private boolean intentarEnvio(EnvioComprobante envio, Comprobante comprobante) {
+        byte[] pdf;
+        try {
+            pdf = meterRegistry.timer("kartingrm.comprobante.render", "formato", ComprobanteService.PDF)
+                    .recordCallable(() -> comprobanteService.obtenerPdf(comprobante));
+        } catch (Exception e) {
+            // Un error al generar el PDF se reintenta igual, pero no dice nada del servidor de correo
+            registrarFallo(envio, e);
+            return true;
+        }
+
+        if (!cortocircuito.permiteIntento()) {
+            return false;
+        }
+        Timer.Sample envioCorreo = Timer.start(meterRegistry);
+        try {
+            comprobanteService.enviarCorreo(envio.getDestinatario(), pdf, comprobante.getReserva().getId());
+            envioCorreo.stop(meterRegistry.timer("kartingrm.correo.envio", "resultado", "ok"));
+            cortocircuito.registrarExito();
+        } catch (Exception e) {
+            envioCorreo.stop(meterRegistry.timer("kartingrm.correo.envio", "resultado", "error"));
+            cortocircuito.registrarFallo();
+            registrarFallo(envio, e);
+            return true;
+        }
+        envio.setEstado(ENVIADO);
+        envio.setIntentos(envio.getIntentos() + 1);
+        return true;
+    }
+
+    private void registrarFallo(EnvioComprobante envio, Exception e) {
+        int intentos = envio.getIntentos() + 1;
+        envio.setIntentos(intentos);
+        String error = String.valueOf(e.getMessage());
+        envio.setUltimoError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (intentos >= maxIntentos) {
+            envio.setEstado(FALLIDO);
+            System.err.println("Error al enviar comprobante por correo a " + envio.getDestinatario()
+                    + " tras " + intentos + " intentos: " + e.getMessage());
+        } else {
+            long espera = esperaInicialSegundos << (intentos - 1);
+            envio.setProximoIntento(LocalDateTime.now().plusSeconds(espera));
+        }
+    }
+}
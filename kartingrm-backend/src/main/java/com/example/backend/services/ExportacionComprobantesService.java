@@ -0,0 +1,161 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Comprobante;
+import com.example.backend.repositories.ComprobanteRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exporta los comprobantes de un rango de fechas como un ZIP escrito en streaming.
+ * Los PDF (y opcionalmente los Excel) se renderizan en un pool acotado compartido por
+ * todas las exportaciones; cada exportación tiene a lo más {@code hilos * 2} comprobantes
+ * en vuelo y escribe cada entrada apenas está lista, así que la memoria no depende del
+ * tamaño del mes. Si el cliente se desconecta, la escritura falla y se cancela el resto.
+ */
+@Service
+public class ExportacionComprobantesService {
+
+    @Autowired
+    private ComprobanteRepository comprobanteRepository;
+
+    @Autowired
+    private ComprobanteService comprobanteService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${kartingrm.comprobantes.hilos-exportacion:4}")
+    private int hilos;
+
+    private ExecutorService pool;
+
+    record Archivo(String nombre, byte[] contenido) {
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        AtomicInteger contador = new AtomicInteger();
+        ThreadPoolExecutor ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "exportacion-comprobantes-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("kartingrm.comprobantes.exportacion.cola", ejecutor, e -> e.getQueue().size())
+                .description("Comprobantes esperando render en exportaciones ZIP").register(meterRegistry);
+        pool = ejecutor;
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Escribe en {@code salida} un ZIP con los comprobantes de las reservas entre
+     * {@code desde} y {@code hasta}, ambos inclusive. Devuelve la cantidad de comprobantes.
+     */
+    public int exportarZip(LocalDate desde, LocalDate hasta, boolean incluirExcel, OutputStream salida)
+            throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(salida);
+        CompletionService<List<Archivo>> completados = new ExecutorCompletionService<>(pool);
+        List<Future<List<Archivo>>> enVuelo = new ArrayList<>();
+        int ventana = hilos * 2;
+        int[] exportados = {0};
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        try {
+            tx.executeWithoutResult(estado -> {
+                try (Stream<Comprobante> stream = comprobanteRepository.streamEntre(
+                        desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay())) {
+                    Iterator<Comprobante> it = stream.iterator();
+                    while (it.hasNext()) {
+                        Comprobante comprobante = it.next();
+                        entityManager.detach(comprobante);
+                        entityManager.detach(comprobante.getReserva());
+                        enVuelo.add(completados.submit(() -> renderizar(comprobante, incluirExcel)));
+                        if (enVuelo.size() >= ventana) {
+                            escribirSiguiente(completados, enVuelo, zip);
+                            exportados[0]++;
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            while (!enVuelo.isEmpty()) {
+                escribirSiguiente(completados, enVuelo, zip);
+                exportados[0]++;
+            }
+            zip.finish();
+            zip.flush();
+            return exportados[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            // Cliente desconectado o error de render: lo que sigue en el pool ya no se necesita
+            enVuelo.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private List<Archivo> renderizar(Comprobante comprobante, boolean incluirExcel) throws Exception {
+        String base = "comprobante_" + comprobante.getReserva().getId();
+        List<Archivo> archivos = new ArrayList<>(2);
+        archivos.add(new Archivo(base + ".pdf", comprobanteService.generarPdf(comprobante)));
+        if (incluirExcel) {
+            archivos.add(new Archivo(base + ".xlsx", comprobanteService.generarExcel(comprobante)));
+        }
+        return archivos;
+    }
+
+    private void escribirSiguiente(CompletionService<List<Archivo>> completados,
+                                   List<Future<List<Archivo>>> enVuelo, ZipOutputStream zip) throws IOException {
+        Future<List<Archivo>> listo;
+        List<Archivo> archivos;
+        try {
+            listo = completados.take();
+            archivos = listo.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error al renderizar un comprobante: " + e.getCause().getMessage(), e.getCause());
+        }
+        enVuelo.remove(listo);
+        for (Archivo archivo : archivos) {
+            zip.putNextEntry(new ZipEntry(archivo.nombre()));
+            zip.write(archivo.contenido());
+            zip.closeEntry();
+        }
+        zip.flush();
+    }
+}
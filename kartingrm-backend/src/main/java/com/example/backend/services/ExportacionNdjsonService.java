@@ -0,0 +1,62 @@
+package com.example.backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Escribe el resultado de una consulta en streaming como NDJSON (un objeto JSON por línea).
+ * Cada entidad se separa del contexto de persistencia apenas se escribe, así que la memoria
+ * no crece con el tamaño de la tabla.
+ */
+@Service
+public class ExportacionNdjsonService {
+
+    private static final int FILAS_POR_FLUSH = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <T> void exportar(Supplier<Stream<T>> consulta, OutputStream salida) throws IOException {
+        OutputStream buffer = new BufferedOutputStream(salida, 64 * 1024);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        try {
+            tx.executeWithoutResult(estado -> {
+                int filas = 0;
+                try (Stream<T> stream = consulta.get()) {
+                    for (T fila : (Iterable<T>) stream::iterator) {
+                        buffer.write(objectMapper.writeValueAsBytes(fila));
+                        buffer.write('\n');
+                        entityManager.detach(fila);
+                        if (++filas % FILAS_POR_FLUSH == 0) {
+                            buffer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        buffer.flush();
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.IngresoDiario;
+import com.example.backend.entities.Reserva;
+import com.example.backend.repositories.IngresoDiarioRepository;
+import com.example.backend.repositories.ReservaRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Mantiene la tabla {@link IngresoDiario} (día x vueltas x rango de personas), una fila
+ * por bucket. Se actualiza dentro de la transacción de cada reserva creada o eliminada,
+ * se llena desde las reservas la primera vez que arranca y puede reconstruirse mes a mes
+ * en paralelo.
+ */
+@Service
+public class IngresoDiarioService {
+
+    private static final int HILOS_RECONSTRUCCION = 4;
+
+    // SQLSTATE de violación de restricción única, igual en PostgreSQL y H2
+    private static final String CLAVE_DUPLICADA = "23505";
+
+    @Autowired
+    private IngresoDiarioRepository ingresoDiarioRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReportesService reportesService;
+
+    record Clave(LocalDate fecha, int numeroVueltas, String rangoPersonas) {
+    }
+
+    public static String rangoPersonas(int n) {
+        if (n <= 2) return "1-2 personas";
+        if (n <= 5) return "3-5 personas";
+        if (n <= 10) return "6-10 personas";
+        return "11-15 personas";
+    }
+
+    // Los reportes leen los días completos de esta tabla: vacía, dejarían fuera todo lo anterior
+    @PostConstruct
+    public void iniciar() throws Exception {
+        if (ingresoDiarioRepository.count() == 0) {
+            reconstruir(false);
+        }
+    }
+
+    @Transactional
+    public void registrar(Reserva reserva) {
+        acumular(reserva, 1);
+    }
+
+    @Transactional
+    public void revertir(Reserva reserva) {
+        acumular(reserva, -1);
+    }
+
+    private void acumular(Reserva reserva, int signo) {
+        LocalDate fecha = reserva.getFechaHoraReserva().toLocalDate();
+        int vueltas = reserva.getNumeroVueltas();
+        String rango = rangoPersonas(reserva.getCantidadPersonas());
+        long monto = (long) signo * reserva.getPrecioFinal();
+
+        if (ingresoDiarioRepository.sumar(fecha, vueltas, rango, monto, signo) == 0
+                && !insertarBucket(fecha, vueltas, rango, monto, signo)) {
+            // Otra transacción creó el bucket entre el UPDATE y el INSERT
+            ingresoDiarioRepository.sumar(fecha, vueltas, rango, monto, signo);
+        }
+    }
+
+    /**
+     * Inserta el bucket bajo un savepoint. Si la restricción única lo rechaza se deshace solo
+     * el INSERT y la transacción de la reserva sigue válida (en PostgreSQL el error la
+     * abortaría completa). Devuelve false si el bucket ya existía.
+     */
+    private boolean insertarBucket(LocalDate fecha, int vueltas, String rango, long monto, long reservas) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            Savepoint savepoint = con.setSavepoint();
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO ingreso_diario " +
+                    "(fecha, numero_vueltas, rango_personas, total_ingresos, cantidad_reservas) VALUES (?, ?, ?, ?, ?)")) {
+                ps.setObject(1, fecha);
+                ps.setInt(2, vueltas);
+                ps.setString(3, rango);
+                ps.setLong(4, monto);
+                ps.setLong(5, reservas);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                if (!CLAVE_DUPLICADA.equals(e.getSQLState())) {
+                    throw e;
+                }
+                con.rollback(savepoint);
+                return false;
+            }
+            con.releaseSavepoint(savepoint);
+            return true;
+        }));
+    }
+
+    /**
+     * Recalcula los ingresos diarios desde las reservas, un mes por tarea.
+     * Con {@code soloVerificar} no escribe y solo cuenta los buckets que no coinciden.
+     * Las reservas que se creen durante la reconstrucción de su mes pueden perderse: conviene
+     * correrla en horario sin atención o volver a verificar después.
+     */
+    public Map<String, Object> reconstruir(boolean soloVerificar) throws Exception {
+        long t0 = System.currentTimeMillis();
+        LocalDateTime primera = reservaRepository.findPrimeraFecha();
+        LocalDateTime ultima = reservaRepository.findUltimaFecha();
+
+        List<YearMonth> meses = new ArrayList<>();
+        if (primera != null) {
+            for (YearMonth m = YearMonth.from(primera); !m.isAfter(YearMonth.from(ultima)); m = m.plusMonths(1)) {
+                meses.add(m);
+            }
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS_RECONSTRUCCION);
+        int diferencias = 0;
+        try {
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (YearMonth mes : meses) {
+                resultados.add(pool.submit(() -> tx.execute(estado -> reconstruirMes(mes, soloVerificar))));
+            }
+            for (Future<Integer> resultado : resultados) {
+                diferencias += resultado.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (!soloVerificar) {
+            reportesService.vaciarCache();
+        }
+
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("meses", meses.size());
+        resumen.put(soloVerificar ? "bucketsDistintos" : "bucketsEscritos", diferencias);
+        resumen.put("milisegundos", System.currentTimeMillis() - t0);
+        return resumen;
+    }
+
+    // Buckets del mes que no coinciden con las reservas; 0 si los ingresos del mes están al día
+    public int verificarMes(YearMonth mes) {
+        return new TransactionTemplate(transactionManager).execute(estado -> reconstruirMes(mes, true));
+    }
+
+    private int reconstruirMes(YearMonth mes, boolean soloVerificar) {
+        LocalDate desde = mes.atDay(1);
+        LocalDate hasta = mes.atEndOfMonth();
+
+        Map<Clave, long[]> esperado = new HashMap<>();
+        for (Object[] fila : reservaRepository.findDatosIngresoEntre(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay())) {
+            Clave clave = new Clave(((LocalDateTime) fila[0]).toLocalDate(), (Integer) fila[1], rangoPersonas((Integer) fila[2]));
+            long[] acumulado = esperado.computeIfAbsent(clave, c -> new long[2]);
+            acumulado[0] += (Integer) fila[3];
+            acumulado[1]++;
+        }
+
+        if (soloVerificar) {
+            Map<Clave, long[]> actual = new HashMap<>();
+            for (IngresoDiario i : ingresoDiarioRepository.findByFechaBetween(desde, hasta)) {
+                long[] acumulado = actual.computeIfAbsent(
+                        new Clave(i.getFecha(), i.getNumeroVueltas(), i.getRangoPersonas()), c -> new long[2]);
+                acumulado[0] += i.getTotalIngresos();
+                acumulado[1] += i.getCantidadReservas();
+            }
+            // Un bucket en cero equivale a uno que no existe
+            actual.values().removeIf(a -> a[0] == 0 && a[1] == 0);
+            Set<Clave> claves = new HashSet<>(esperado.keySet());
+            claves.addAll(actual.keySet());
+            int distintos = 0;
+            for (Clave clave : claves) {
+                if (!Arrays.equals(esperado.get(clave), actual.get(clave))) {
+                    distintos++;
+                }
+            }
+            return distintos;
+        }
+
+        ingresoDiarioRepository.eliminarEntre(desde, hasta);
+        List<IngresoDiario> filas = esperado.entrySet().stream()
+                .map(e -> new IngresoDiario(null, e.getKey().fecha(), e.getKey().numeroVueltas(),
+                        e.getKey().rangoPersonas(), e.getValue()[0], e.getValue()[1]))
+                .toList();
+        ingresoDiarioRepository.saveAll(filas);
+        return filas.size();
+    }
+}
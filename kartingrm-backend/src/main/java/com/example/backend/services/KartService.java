@@ -2,7 +2,9 @@ package com.example.backend.services;
 
 
 import com.example.backend.entities.Kart;
+import com.example.backend.events.FlotaCambiadaEvent;
 import com.example.backend.repositories.KartRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,11 +14,25 @@ public class KartService {
 
     private final KartRepository kartRepository;
 
-    public KartService(KartRepository kartRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public KartService(KartRepository kartRepository, ApplicationEventPublisher eventPublisher) {
         this.kartRepository = kartRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Kart> obtenerTodos() {
         return kartRepository.findAll();
     }
+
+    public Kart guardarKart(Kart kart) {
+        Kart guardado = kartRepository.save(kart);
+        eventPublisher.publishEvent(new FlotaCambiadaEvent(guardado.getId()));
+        return guardado;
+    }
+
+    public void eliminarKart(Long id) {
+        kartRepository.deleteById(id);
+        eventPublisher.publishEvent(new FlotaCambiadaEvent(id));
+    }
 }
@@ -0,0 +1,63 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Tarifa;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Único lugar donde se calcula el precio de una reserva: tarifa por vueltas, el mayor de
+ * los descuentos (cumpleaños/fin de semana/feriado, cantidad de personas y frecuencia
+ * del titular) e IVA, todo con aritmética entera. La reserva y su comprobante usan el
+ * mismo {@link DesglosePrecio}.
+ *
+ * Tarifas, fechas especiales y descuentos se resuelven contra tablas en memoria, así que
+ * cotizar no consulta la base y no necesita un cache propio.
+ */
+@Service
+public class MotorPrecios {
+
+    static final int IVA_PORCENTAJE = 19;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private TarifaEspService tarifaEspService;
+
+    @Autowired
+    private DescuentoPorCantidadService descuentoPorCantidadService;
+
+    @Autowired
+    private descuentoFrecuenteService descuentoFrecuenteService;
+
+    /**
+     * @param fechaNacimientoTitular puede ser null si el titular no es conocido
+     * @param reservasEsteMes        reservas del titular en el mes de {@code fecha}, sin contar esta
+     */
+    public DesglosePrecio cotizar(int numeroVueltas, int cantidadPersonas, LocalDate fecha,
+                                  LocalDate fechaNacimientoTitular, int reservasEsteMes) {
+        Tarifa tarifa = tarifaService.obtenerTarifaPorVueltas(numeroVueltas);
+        if (tarifa == null) {
+            throw new IllegalArgumentException("No existe una tarifa de " + numeroVueltas + " vueltas");
+        }
+        return desglosar(numeroVueltas, tarifa.getDuracionTotalMinutos(), tarifa.getPrecio(), cantidadPersonas,
+                tarifaEspService.obtenerDescuentoPorFecha(fechaNacimientoTitular, fecha),
+                descuentoPorCantidadService.calcularDescuentoPorCantidad(cantidadPersonas),
+                descuentoFrecuenteService.calcularDescuentoPorFrecuencia(reservasEsteMes));
+    }
+
+    // Los descuentos no se acumulan: se aplica el mayor. El IVA se redondea al peso
+    static DesglosePrecio desglosar(int numeroVueltas, int duracionMinutos, int precioBasePorPersona,
+                                    int cantidadPersonas, int descuentoEspecial, int descuentoPorCantidad,
+                                    int descuentoPorFrecuencia) {
+        int descuento = Math.max(descuentoEspecial, Math.max(descuentoPorCantidad, descuentoPorFrecuencia));
+        long tarifaBase = (long) precioBasePorPersona * cantidadPersonas;
+        long subtotal = tarifaBase - tarifaBase * descuento / 100;
+        long iva = (subtotal * IVA_PORCENTAJE + 50) / 100;
+        return new DesglosePrecio(numeroVueltas, duracionMinutos, cantidadPersonas, precioBasePorPersona,
+                Math.toIntExact(tarifaBase), descuentoEspecial, descuentoPorCantidad, descuentoPorFrecuencia,
+                descuento, Math.toIntExact(subtotal), Math.toIntExact(iva), Math.toIntExact(subtotal + iva));
+    }
+}
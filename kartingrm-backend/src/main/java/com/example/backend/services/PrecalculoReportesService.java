@@ -0,0 +1,124 @@
+package com.example.backend.services;
+
+import com.example.backend.repositories.ReservaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Precalcula de noche los reportes de cada mes cerrado que aún no está en memoria,
+ * un mes por tarea en un ForkJoinPool propio. El mes en curso nunca se precalcula.
+ * Los totales salen de los ingresos diarios: un mes cuyos ingresos no coinciden con
+ * las reservas no se guarda y sigue calculándose en vivo hasta que se reconstruyan.
+ * Los resultados viven solo en memoria; después de reiniciar los recalcula la pasada
+ * siguiente. La duración total queda en {@value #METRICA} y la de cada mes en
+ * {@value ReportesService#METRICA_PRECALCULO_MES}.
+ */
+@Service
+public class PrecalculoReportesService {
+
+    static final String METRICA = "kartingrm.reporte.precalculo";
+
+    @Autowired
+    private ReportesService reportesService;
+
+    @Autowired
+    private IngresoDiarioService ingresoDiarioService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${kartingrm.reportes.hilos-precalculo:4}")
+    private int hilos;
+
+    private ForkJoinPool pool;
+
+    private enum Resultado { GUARDADO, DESCARTADO, SIN_VERIFICAR }
+
+    @PostConstruct
+    public void iniciar() {
+        pool = new ForkJoinPool(hilos);
+        Gauge.builder("kartingrm.reporte.meses_precalculados", reportesService, ReportesService::mesesPrecalculados)
+                .description("Meses cerrados con reportes en memoria").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdown();
+    }
+
+    @Scheduled(cron = "${kartingrm.reportes.precalculo-cron:0 0 5 * * *}")
+    public synchronized Map<String, Object> precalcularMesesCerrados() {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        long t0 = System.currentTimeMillis();
+
+        List<YearMonth> meses = new ArrayList<>();
+        LocalDateTime primera = reservaRepository.findPrimeraFecha();
+        if (primera != null) {
+            YearMonth ultimoCerrado = YearMonth.now().minusMonths(1);
+            for (YearMonth m = YearMonth.from(primera); !m.isAfter(ultimoCerrado); m = m.plusMonths(1)) {
+                if (!reportesService.estaPrecalculado(m)) {
+                    meses.add(m);
+                }
+            }
+        }
+
+        List<ForkJoinTask<Resultado>> tareas = new ArrayList<>();
+        for (YearMonth mes : meses) {
+            tareas.add(pool.submit(() -> precalcular(mes)));
+        }
+        int guardados = 0;
+        int sinVerificar = 0;
+        int fallidos = 0;
+        for (ForkJoinTask<Resultado> tarea : tareas) {
+            try {
+                Resultado resultado = tarea.join();
+                if (resultado == Resultado.GUARDADO) {
+                    guardados++;
+                } else if (resultado == Resultado.SIN_VERIFICAR) {
+                    sinVerificar++;
+                }
+            } catch (RuntimeException e) {
+                fallidos++;
+                System.err.println("Error al precalcular reportes de un mes: " + e.getMessage());
+            }
+        }
+        muestra.stop(meterRegistry.timer(METRICA));
+
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("meses", meses.size());
+        resumen.put("guardados", guardados);
+        resumen.put("sinVerificar", sinVerificar);
+        resumen.put("fallidos", fallidos);
+        resumen.put("milisegundos", System.currentTimeMillis() - t0);
+        return resumen;
+    }
+
+    private Resultado precalcular(YearMonth mes) {
+        int distintos = ingresoDiarioService.verificarMes(mes);
+        if (distintos != 0) {
+            System.err.println("Ingresos diarios de " + mes + " no coinciden con las reservas (" + distintos
+                    + " buckets); el mes no se precalcula hasta reconstruirlos");
+            return Resultado.SIN_VERIFICAR;
+        }
+        return reportesService.precalcularMes(mes) ? Resultado.GUARDADO : Resultado.DESCARTADO;
+    }
+}
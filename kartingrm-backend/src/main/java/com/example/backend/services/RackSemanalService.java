@@ -3,38 +3,104 @@ package com.example.backend.services;
 
 import com.example.backend.entities.RackSemanal;
 import com.example.backend.entities.Reserva;
+import com.example.backend.events.ReservaCreadaEvent;
+import com.example.backend.events.ReservaEliminadaEvent;
 import com.example.backend.repositories.RackSemanalRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.IsoFields;
 import java.time.temporal.TemporalAdjusters;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class RackSemanalService {
 
+    private static final int MAX_SEMANAS_EN_CACHE = 520;
+
     @Autowired
     private RackSemanalRepository repository;
 
     @Autowired
     private ReservaService reservaService;
 
+    // Vista ya armada por semana ("anio-semana"); se invalida cuando cambia una reserva de esa semana
+    private final Map<String, VistaSemana> cache = new ConcurrentHashMap<>();
+
+    // Cambia con cada invalidación; una vista armada mientras cambiaba no se guarda.
+    // Comparar y guardar ocurre dentro de cache.compute, igual que la invalidación, así que no se cruzan
+    private final AtomicLong version = new AtomicLong();
+
+    public record VistaSemana(List<Map<String, Object>> reservas, String etag) {
+    }
+
     public List<Map<String, Object>> obtenerReservasDeSemana(int anio, int semana) {
-        // Calcular inicio y fin de semana ISO
-        LocalDate inicio = LocalDate.of(anio, 1, 1)
-                .with(IsoFields.WEEK_OF_WEEK_BASED_YEAR, semana)
-                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return obtenerVistaSemana(anio, semana).reservas();
+    }
+
+    // Solo lectura: no escribe el RackSemanal, que se mantiene al crear y eliminar reservas
+    public VistaSemana obtenerVistaSemana(int anio, int semana) {
+        VistaSemana vista = cache.get(clave(anio, semana));
+        if (vista == null) {
+            long versionLeida = version.get();
+            vista = construirVista(anio, semana);
+            if (cache.size() >= MAX_SEMANAS_EN_CACHE) {
+                cache.clear();
+            }
+            VistaSemana armada = vista;
+            cache.compute(clave(anio, semana), (k, actual) ->
+                    actual != null ? actual : version.get() == versionLeida ? armada : null);
+        }
+        return vista;
+    }
+
+    @EventListener
+    public void agregarReservaAlRack(ReservaCreadaEvent evento) {
+        Reserva reserva = evento.reserva();
+        LocalDate fecha = reserva.getFechaHoraReserva().toLocalDate();
+        Long rackId = obtenerOCrearRack(fecha.get(IsoFields.WEEK_BASED_YEAR), fecha.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        repository.agregarReserva(rackId, reserva.getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void invalidarSemana(ReservaCreadaEvent evento) {
+        invalidar(evento.reserva());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void invalidarSemana(ReservaEliminadaEvent evento) {
+        invalidar(evento.reserva());
+    }
+
+    // Dentro de la transacción de eliminarReserva: la semana sale de la fecha de la reserva
+    @EventListener
+    public void removerReservaDelRack(ReservaEliminadaEvent evento) {
+        Reserva reserva = evento.reserva();
+        LocalDate fecha = reserva.getFechaHoraReserva().toLocalDate();
+        repository.quitarReservaDeSemana(reserva.getId(),
+                fecha.get(IsoFields.WEEK_BASED_YEAR), fecha.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+
+    @Transactional
+    public void removerReservaDeTodosLosRacks(Long reservaId) {
+        repository.quitarReserva(reservaId);
+    }
+
+    private VistaSemana construirVista(int anio, int semana) {
+        LocalDate inicio = inicioSemana(anio, semana);
         LocalDate fin = inicio.plusDays(6);
 
         List<Reserva> reservas = reservaService.obtenerReservasEntreFechas(inicio.atStartOfDay(), fin.atTime(23, 59, 59));
 
-        // Convertir reservas a mapas simples (puedes personalizar esto si prefieres un DTO)
         List<Map<String, Object>> reservasMapeadas = reservas.stream()
                 .map(r -> {
                     Map<String, Object> reservaMap = new HashMap<>();
@@ -45,34 +111,40 @@ public class RackSemanalService {
                     reservaMap.put("fechaHoraFin", r.getFechaHoraFin());
                     reservaMap.put("precioFinal", r.getPrecioFinal());
                     reservaMap.put("estado", r.getEstado());
-                    return reservaMap;
+                    return Collections.unmodifiableMap(reservaMap);
                 })
-                .collect(Collectors.toList()); // ✅ mutable
+                .toList();
 
-        List<Long> ids = reservas.stream()
-                .map(Reserva::getId)
-                .collect(Collectors.toCollection(ArrayList::new)); // ✅ mutable
-
-        RackSemanal rack = repository.findByAnioAndNumeroSemana(anio, semana)
-                .orElse(new RackSemanal(null, anio, semana, inicio, fin, new ArrayList<>()));
-
-        rack.setIdsReservas(ids); // ahora es mutable, no lanza error
-        repository.save(rack);
+        String etag = "\"" + DigestUtils.md5DigestAsHex(reservasMapeadas.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        return new VistaSemana(reservasMapeadas, etag);
+    }
 
-        return reservasMapeadas;
+    // Si dos reservas abren la misma semana a la vez pueden quedar dos racks; ambos se limpian igual al eliminar
+    private Long obtenerOCrearRack(int anio, int semana) {
+        return repository.findFirstByAnioAndNumeroSemanaOrderByIdAsc(anio, semana)
+                .orElseGet(() -> {
+                    LocalDate inicio = inicioSemana(anio, semana);
+                    return repository.save(new RackSemanal(null, anio, semana, inicio, inicio.plusDays(6), new ArrayList<>()));
+                })
+                .getId();
     }
 
+    private void invalidar(Reserva reserva) {
+        LocalDate fecha = reserva.getFechaHoraReserva().toLocalDate();
+        cache.compute(clave(fecha.get(IsoFields.WEEK_BASED_YEAR), fecha.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)), (k, actual) -> {
+            version.incrementAndGet();
+            return null;
+        });
+    }
 
-    public void removerReservaDeTodosLosRacks(Long reservaId) {
-        List<RackSemanal> racks = repository.findAll();
+    // El 4 de enero siempre cae en la semana ISO 1 de su año
+    private LocalDate inicioSemana(int anio, int semana) {
+        return LocalDate.of(anio, 1, 4)
+                .with(IsoFields.WEEK_OF_WEEK_BASED_YEAR, semana)
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
 
-        for (RackSemanal rack : racks) {
-            if (rack.getIdsReservas().contains(reservaId)) {
-                rack.getIdsReservas().remove(reservaId);
-                repository.save(rack);
-            }
-        }
+    private String clave(int anio, int semana) {
+        return anio + "-" + semana;
     }
 }
-
-
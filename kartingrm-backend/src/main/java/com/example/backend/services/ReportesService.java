@@ -1,34 +1,216 @@
 package com.example.backend.services;
 
 import com.example.backend.entities.Reportes;
-import com.example.backend.entities.Reserva;
+import com.example.backend.events.ReservaCreadaEvent;
+import com.example.backend.events.ReservaEliminadaEvent;
+import com.example.backend.repositories.IngresoAgrupado;
+import com.example.backend.repositories.IngresoDiarioRepository;
+import com.example.backend.repositories.IngresoPorRango;
 import com.example.backend.repositories.ReportesRepository;
+import com.example.backend.repositories.ReservaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
+/**
+ * Reportes de ingresos calculados sin escribir en la base de datos.
+ * Cada resultado queda en cache por (tipo, rango) hasta que se crea o elimina una reserva
+ * dentro de ese rango; pedidos idénticos simultáneos esperan el mismo cálculo.
+ * Guardar un reporte en la tabla {@link Reportes} es una acción aparte
+ * ({@link #guardarInstantanea}), y las instantáneas antiguas se eliminan a diario.
+ *
+ * Los meses cerrados se precalculan de noche ({@link PrecalculoReportesService}); un rango
+ * de varios meses suma esos totales y solo calcula en vivo el mes abierto y los extremos.
+ */
 @Service
 public class ReportesService {
 
+    public static final String VUELTAS = "vueltas";
+    public static final String TIEMPO = "tiempo";
+    public static final String PERSONAS = "personas";
+
+    private static final int MAX_REPORTES_EN_CACHE = 512;
+
+    // Las columnas de fecha guardan microsegundos: este es el último instante representable de un día
+    private static final long ULTIMO_INSTANTE_NANOS = 1_000;
+
     @Autowired
     private ReportesRepository reportesRepo;
 
     @Autowired
-    private ReservaService reservaService;
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private IngresoDiarioRepository ingresoDiarioRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static final String METRICA = "kartingrm.reporte.generacion";
+
+    @Value("${kartingrm.reportes.retencion-dias:90}")
+    private int retencionDias;
+
+    record ClaveReporte(String tipo, LocalDateTime inicio, LocalDateTime fin) {
+        boolean incluye(LocalDateTime instante) {
+            return !instante.isBefore(inicio) && !instante.isAfter(fin);
+        }
+    }
+
+    private final Map<ClaveReporte, CompletableFuture<List<Reportes>>> cache = new ConcurrentHashMap<>();
+
+    static final String METRICA_PRECALCULO_MES = "kartingrm.reporte.precalculo.mes";
+
+    // Totales inmutables de un mes cerrado, listos para sumarse a los de otros meses
+    record ResumenMes(Map<Integer, Long> porVueltas, Map<String, Long> porPersonas) {
+        ResumenMes {
+            porVueltas = Map.copyOf(porVueltas);
+            porPersonas = Map.copyOf(porPersonas);
+        }
+    }
+
+    // Solo en memoria: se pierden al reiniciar y esos meses se calculan en vivo hasta el próximo precálculo
+    private final Map<YearMonth, ResumenMes> mesesCerrados = new ConcurrentHashMap<>();
+
+    // Aumenta cada vez que cambia una reserva del mes, para no guardar un cálculo que quedó viejo
+    private final Map<YearMonth, Long> versionesMes = new ConcurrentHashMap<>();
+
+    // Días completos del rango salen de los ingresos diarios; los extremos parciales, de las reservas
+    private record Tramos(LocalDate primerDia, LocalDate ultimoDia,
+                          LocalDateTime finInicial, LocalDateTime inicioFinal) {
+        boolean tieneDiasCompletos() {
+            return !primerDia.isAfter(ultimoDia);
+        }
+    }
 
     public List<Reportes> generarIngresosPorVueltas(LocalDateTime inicio, LocalDateTime fin) {
-        List<Map<String, Object>> reservas = obtenerReservas(inicio, fin);
-        Map<Integer, Long> acumulados = new HashMap<>();
+        return obtener(VUELTAS, inicio, fin);
+    }
+
+    public List<Reportes> generarIngresosPorPersonas(LocalDateTime inicio, LocalDateTime fin) {
+        return obtener(PERSONAS, inicio, fin);
+    }
 
-        for (Map<String, Object> r : reservas) {
-            int vueltas = (int) r.get("numeroVueltas");
-            int total = (int) r.get("precioFinal");
-            acumulados.merge(vueltas, (long) total, Long::sum);
+    public List<Reportes> generarIngresosPorTiempo(LocalDateTime inicio, LocalDateTime fin) {
+        return obtener(TIEMPO, inicio, fin);
+    }
+
+    // El primer pedido de una clave calcula; los demás esperan su resultado
+    private List<Reportes> obtener(String tipo, LocalDateTime inicio, LocalDateTime fin) {
+        ClaveReporte clave = new ClaveReporte(tipo, inicio, fin);
+        CompletableFuture<List<Reportes>> existente = cache.get(clave);
+        if (existente == null) {
+            if (cache.size() >= MAX_REPORTES_EN_CACHE) {
+                cache.values().removeIf(CompletableFuture::isDone);
+            }
+            CompletableFuture<List<Reportes>> nuevo = new CompletableFuture<>();
+            existente = cache.putIfAbsent(clave, nuevo);
+            if (existente == null) {
+                meterRegistry.counter("kartingrm.reporte.cache", "resultado", "fallo").increment();
+                try {
+                    nuevo.complete(calcular(tipo, inicio, fin));
+                } catch (RuntimeException e) {
+                    cache.remove(clave, nuevo);
+                    nuevo.completeExceptionally(e);
+                    throw e;
+                }
+                return nuevo.join();
+            }
+        }
+        meterRegistry.counter("kartingrm.reporte.cache", "resultado", "acierto").increment();
+        try {
+            return existente.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : e;
         }
+    }
+
+    // Sin cache. La lista es inmutable y se comparte entre pedidos: sus filas no se modifican ni tienen id
+    List<Reportes> calcular(String tipo, LocalDateTime inicio, LocalDateTime fin) {
+        return switch (tipo) {
+            case VUELTAS -> meterRegistry.timer(METRICA, "tipo", VUELTAS)
+                    .record(() -> generarIngresosPorVueltasSinMedir(inicio, fin));
+            case PERSONAS -> meterRegistry.timer(METRICA, "tipo", PERSONAS)
+                    .record(() -> generarIngresosPorPersonasSinMedir(inicio, fin));
+            // Misma suma que por vueltas, rotulada en minutos
+            case TIEMPO -> obtener(VUELTAS, inicio, fin).stream()
+                    .map(r -> Reportes.builder()
+                            .tipo("INGRESOS_TIEMPO")
+                            .criterio(r.getCriterio().replace("vueltas", "minutos"))
+                            .totalIngresos(r.getTotalIngresos())
+                            .fechaGeneracion(r.getFechaGeneracion())
+                            .build())
+                    .toList();
+            default -> throw new IllegalArgumentException("Tipo de reporte desconocido: " + tipo);
+        };
+    }
+
+    /**
+     * Guarda en la tabla de reportes una copia del resultado actual, con la fecha de hoy.
+     */
+    @Transactional
+    public List<Reportes> guardarInstantanea(String tipo, LocalDateTime inicio, LocalDateTime fin) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Reportes> copia = obtener(tipo, inicio, fin).stream()
+                .map(r -> Reportes.builder()
+                        .tipo(r.getTipo())
+                        .criterio(r.getCriterio())
+                        .totalIngresos(r.getTotalIngresos())
+                        .fechaGeneracion(ahora)
+                        .build())
+                .toList();
+        return reportesRepo.saveAll(copia);
+    }
 
-        List<Reportes> resultado = acumulados.entrySet().stream()
+    public List<Reportes> obtenerInstantaneas(String tipo) {
+        return reportesRepo.findByTipoOrderByFechaGeneracionDesc(tipo);
+    }
+
+    @Scheduled(cron = "${kartingrm.reportes.retencion-cron:0 0 4 * * *}")
+    @Transactional
+    public int eliminarInstantaneasAntiguas() {
+        return reportesRepo.eliminarAnterioresA(LocalDateTime.now().minusDays(retencionDias));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void olvidarReportesConReserva(ReservaCreadaEvent evento) {
+        olvidar(evento.reserva().getFechaHoraReserva());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void olvidarReportesSinReserva(ReservaEliminadaEvent evento) {
+        olvidar(evento.reserva().getFechaHoraReserva());
+    }
+
+    private void olvidar(LocalDateTime fechaReserva) {
+        olvidarMes(YearMonth.from(fechaReserva));
+        cache.keySet().removeIf(clave -> clave.incluye(fechaReserva));
+    }
+
+    // Tras reconstruir los ingresos diarios cualquier resultado puede haber cambiado
+    public void vaciarCache() {
+        new ArrayList<>(mesesCerrados.keySet()).forEach(this::olvidarMes);
+        cache.clear();
+    }
+
+    private List<Reportes> generarIngresosPorVueltasSinMedir(LocalDateTime inicio, LocalDateTime fin) {
+        return combinar(inicio, fin, ResumenMes::porVueltas, this::sumarVueltas).entrySet().stream()
+                .filter(e -> e.getValue() != 0)
                 .map(e -> Reportes.builder()
                         .tipo("INGRESOS_VUELTAS")
                         .criterio(e.getKey() + " vueltas")
@@ -36,22 +218,11 @@ public class ReportesService {
                         .fechaGeneracion(LocalDateTime.now())
                         .build())
                 .toList();
-
-        return reportesRepo.saveAll(resultado);
     }
 
-    public List<Reportes> generarIngresosPorPersonas(LocalDateTime inicio, LocalDateTime fin) {
-        List<Map<String, Object>> reservas = obtenerReservas(inicio, fin);
-        Map<String, Long> acumulados = new HashMap<>();
-
-        for (Map<String, Object> r : reservas) {
-            int cantidad = (int) r.get("cantidadPersonas");
-            int total = (int) r.get("precioFinal");
-            String rango = rangoPersonas(cantidad);
-            acumulados.merge(rango, (long) total, Long::sum);
-        }
-
-        List<Reportes> resultado = acumulados.entrySet().stream()
+    private List<Reportes> generarIngresosPorPersonasSinMedir(LocalDateTime inicio, LocalDateTime fin) {
+        return combinar(inicio, fin, ResumenMes::porPersonas, this::sumarPersonas).entrySet().stream()
+                .filter(e -> e.getValue() != 0)
                 .map(e -> Reportes.builder()
                         .tipo("INGRESOS_PERSONAS")
                         .criterio(e.getKey())
@@ -59,44 +230,141 @@ public class ReportesService {
                         .fechaGeneracion(LocalDateTime.now())
                         .build())
                 .toList();
+    }
 
-        return reportesRepo.saveAll(resultado);
+    // Meses completos ya precalculados salen de memoria; los tramos entre ellos se calculan en vivo
+    private <K> Map<K, Long> combinar(LocalDateTime inicio, LocalDateTime fin,
+                                      Function<ResumenMes, Map<K, Long>> delResumen,
+                                      BiFunction<LocalDateTime, LocalDateTime, Map<K, Long>> enVivo) {
+        Map<K, Long> acumulados = new HashMap<>();
+        LocalDateTime pendienteDesde = inicio;
+        YearMonth mes = YearMonth.from(inicio);
+        if (!inicio.equals(mes.atDay(1).atStartOfDay())) {
+            mes = mes.plusMonths(1);
+        }
+        for (; !finDelDia(mes.atEndOfMonth()).isAfter(fin); mes = mes.plusMonths(1)) {
+            ResumenMes resumen = mesesCerrados.get(mes);
+            if (resumen == null) {
+                continue;
+            }
+            LocalDateTime inicioMes = mes.atDay(1).atStartOfDay();
+            if (pendienteDesde.isBefore(inicioMes)) {
+                enVivo.apply(pendienteDesde, inicioMes.minusNanos(ULTIMO_INSTANTE_NANOS))
+                        .forEach((k, v) -> acumulados.merge(k, v, Long::sum));
+            }
+            delResumen.apply(resumen).forEach((k, v) -> acumulados.merge(k, v, Long::sum));
+            pendienteDesde = mes.plusMonths(1).atDay(1).atStartOfDay();
+        }
+        if (!pendienteDesde.isAfter(fin)) {
+            enVivo.apply(pendienteDesde, fin).forEach((k, v) -> acumulados.merge(k, v, Long::sum));
+        }
+        return acumulados;
     }
 
-    public List<Reportes> generarIngresosPorTiempo(LocalDateTime inicio, LocalDateTime fin) {
-        List<Reportes> porVueltas = generarIngresosPorVueltas(inicio, fin);
+    private Map<Integer, Long> sumarVueltas(LocalDateTime inicio, LocalDateTime fin) {
+        Map<Integer, Long> acumulados = new HashMap<>();
+        Tramos tramos = dividir(inicio, fin);
+        if (!tramos.tieneDiasCompletos()) {
+            sumarPorVueltas(acumulados, reservaRepository.sumarIngresosPorVueltas(inicio, fin));
+        } else {
+            sumarPorVueltas(acumulados, ingresoDiarioRepository.sumarPorVueltas(tramos.primerDia(), tramos.ultimoDia()));
+            if (tramos.finInicial() != null) {
+                sumarPorVueltas(acumulados, reservaRepository.sumarIngresosPorVueltas(inicio, tramos.finInicial()));
+            }
+            if (tramos.inicioFinal() != null) {
+                sumarPorVueltas(acumulados, reservaRepository.sumarIngresosPorVueltas(tramos.inicioFinal(), fin));
+            }
+        }
+        return acumulados;
+    }
+
+    private Map<String, Long> sumarPersonas(LocalDateTime inicio, LocalDateTime fin) {
+        Map<String, Long> acumulados = new HashMap<>();
+        Tramos tramos = dividir(inicio, fin);
+        if (!tramos.tieneDiasCompletos()) {
+            sumarPorPersonas(acumulados, reservaRepository.sumarIngresosPorPersonas(inicio, fin));
+        } else {
+            for (IngresoPorRango fila : ingresoDiarioRepository.sumarPorRangoPersonas(tramos.primerDia(), tramos.ultimoDia())) {
+                acumulados.merge(fila.getClave(), fila.getTotal(), Long::sum);
+            }
+            if (tramos.finInicial() != null) {
+                sumarPorPersonas(acumulados, reservaRepository.sumarIngresosPorPersonas(inicio, tramos.finInicial()));
+            }
+            if (tramos.inicioFinal() != null) {
+                sumarPorPersonas(acumulados, reservaRepository.sumarIngresosPorPersonas(tramos.inicioFinal(), fin));
+            }
+        }
+        return acumulados;
+    }
+
+    /**
+     * Calcula y guarda en memoria los totales de un mes cerrado. Se calculan desde los ingresos
+     * diarios, así que quien llama debe verificarlos antes ({@link IngresoDiarioService#verificarMes}).
+     * Si una reserva de ese mes cambia mientras tanto, el resultado se descarta y el mes sigue
+     * calculándose en vivo.
+     */
+    boolean precalcularMes(YearMonth mes) {
+        long version = versionesMes.getOrDefault(mes, 0L);
+        LocalDateTime inicioMes = mes.atDay(1).atStartOfDay();
+        LocalDateTime finMes = finDelDia(mes.atEndOfMonth());
+        ResumenMes resumen = meterRegistry.timer(METRICA_PRECALCULO_MES)
+                .record(() -> new ResumenMes(sumarVueltas(inicioMes, finMes), sumarPersonas(inicioMes, finMes)));
 
-        porVueltas.forEach(r -> {
-            r.setTipo("INGRESOS_TIEMPO");
-            String criterio = r.getCriterio(); // "10 vueltas"
-            r.setCriterio(criterio.replace("vueltas", "minutos"));
+        boolean[] guardado = {false};
+        versionesMes.compute(mes, (m, actual) -> {
+            if ((actual == null ? 0L : actual) == version) {
+                mesesCerrados.put(mes, resumen);
+                guardado[0] = true;
+            }
+            return actual;
         });
+        return guardado[0];
+    }
+
+    boolean estaPrecalculado(YearMonth mes) {
+        return mesesCerrados.containsKey(mes);
+    }
 
-        return reportesRepo.saveAll(porVueltas);
+    public int mesesPrecalculados() {
+        return mesesCerrados.size();
     }
 
-    private List<Map<String, Object>> obtenerReservas(LocalDateTime inicio, LocalDateTime fin) {
-        List<Reserva> reservas = reservaService.obtenerReservasEntreFechas(inicio, fin);
+    private void olvidarMes(YearMonth mes) {
+        versionesMes.merge(mes, 1L, Long::sum);
+        mesesCerrados.remove(mes);
+    }
 
-        // Convertir cada reserva a un Map (puedes ajustar los campos según tus necesidades)
-        return reservas.stream()
-                .map(r -> Map.of(
-                        "id", (Object) r.getId(),
-                        "clienteTitularId", (Object) r.getClienteTitularId(),
-                        "numeroVueltas", (Object) r.getNumeroVueltas(),
-                        "fechaHoraReserva", (Object) r.getFechaHoraReserva(),
-                        "fechaHoraFin", (Object) r.getFechaHoraFin(),
-                        "precioFinal", (Object) r.getPrecioFinal(),
-                        "cantidadPersonas", r.getCantidadPersonas(),
-                        "estado", (Object) r.getEstado()
-                ))
-                .toList();
+    private Tramos dividir(LocalDateTime inicio, LocalDateTime fin) {
+        LocalDate primerDia = inicio.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? inicio.toLocalDate()
+                : inicio.toLocalDate().plusDays(1);
+        LocalDate ultimoDia = fin.isBefore(finDelDia(fin.toLocalDate()))
+                ? fin.toLocalDate().minusDays(1)
+                : fin.toLocalDate();
+
+        LocalDateTime finInicial = inicio.isBefore(primerDia.atStartOfDay())
+                ? finDelDia(primerDia.minusDays(1))
+                : null;
+        LocalDateTime inicioFinal = fin.isBefore(ultimoDia.plusDays(1).atStartOfDay())
+                ? null
+                : ultimoDia.plusDays(1).atStartOfDay();
+        return new Tramos(primerDia, ultimoDia, finInicial, inicioFinal);
+    }
+
+    private LocalDateTime finDelDia(LocalDate dia) {
+        return dia.plusDays(1).atStartOfDay().minusNanos(ULTIMO_INSTANTE_NANOS);
     }
 
-    private String rangoPersonas(int n) {
-        if (n <= 2) return "1-2 personas";
-        if (n <= 5) return "3-5 personas";
-        if (n <= 10) return "6-10 personas";
-        return "11-15 personas";
+    private void sumarPorVueltas(Map<Integer, Long> acumulados, List<IngresoAgrupado> filas) {
+        for (IngresoAgrupado fila : filas) {
+            acumulados.merge(fila.getClave(), fila.getTotal(), Long::sum);
+        }
+    }
+
+    // La consulta agrupa por cantidad exacta; aquí solo se juntan en rangos las pocas filas
+    private void sumarPorPersonas(Map<String, Long> acumulados, List<IngresoAgrupado> filas) {
+        for (IngresoAgrupado fila : filas) {
+            acumulados.merge(IngresoDiarioService.rangoPersonas(fila.getClave()), fila.getTotal(), Long::sum);
+        }
     }
 }
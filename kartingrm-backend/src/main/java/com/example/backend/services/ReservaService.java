@@ -1,22 +1,51 @@
 package com.example.backend.services;
 
 import com.example.backend.entities.*;
+import com.example.backend.events.ReservaCreadaEvent;
+import com.example.backend.events.ReservaEliminadaEvent;
 import com.example.backend.repositories.ComprobanteRepository;
 import com.example.backend.repositories.ReservaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class ReservaService {
 
+    static final int RESERVAS_POR_LOTE = 50;
+    static final String METRICA_FASES = "kartingrm.reserva.fase";
+    static final int HORA_APERTURA = 14;
+    static final int HORA_APERTURA_FESTIVO = 10;
+    static final int HORA_CIERRE = 22;
+
     @Autowired
     private ReservaRepository reservaRepository;
 
@@ -30,163 +59,359 @@ public class ReservaService {
     private TarifaEspService tarifaEspService;
 
     @Autowired
-    private KartService kartService;
-
-    @Autowired
-    private DescuentoPorCantidadService descuentoPorCantidadService;
+    private DisponibilidadKartsService disponibilidadKartsService;
 
     @Autowired
-    private descuentoFrecuenteService descuentoFrecuenteService;
+    private MotorPrecios motorPrecios;
 
     @Autowired
     private ComprobanteRepository comprobanteRepository;
 
     @Autowired
-    private ComprobanteService comprobanteService;
+    private EnvioComprobantesService envioComprobantesService;
 
-    public Reserva crearReserva(Reserva nuevaReserva) {
-        Long titularId = obtenerClienteIdPorCorreo(nuevaReserva.getCorreoTitular());
+    @Autowired
+    private IngresoDiarioService ingresoDiarioService;
 
-        List<Long> idsParticipantes = nuevaReserva.getCorreosParticipantes().stream()
-                .map(this::obtenerClienteIdPorCorreo)
-                .toList();
+    @Autowired
+    private VisitasMensualesService visitasMensualesService;
 
-        nuevaReserva.setClienteTitularId(titularId);
-        nuevaReserva.setIdsClientesReserva(idsParticipantes);
-        nuevaReserva.setCantidadPersonas(idsParticipantes.size());
+    @Autowired
+    private ExportacionNdjsonService exportacionNdjsonService;
 
-        int reservasEsteMes = obtenerReservasDelMes(titularId, nuevaReserva.getFechaHoraReserva());
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
-        int precioBase = obtenerPrecioBase(nuevaReserva.getNumeroVueltas());
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
-        int descuentoEspecial = obtenerDescuentoEspecial(titularId, nuevaReserva.getFechaHoraReserva().toLocalDate());
-        int descuentoPorCantidad = obtenerDescuentoPorCantidad(nuevaReserva.getCantidadPersonas());
-        int descuentoPorFrecuencia = obtenerDescuentoPorFrecuencia(reservasEsteMes);
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-        int mejorDescuento = Math.max(descuentoEspecial, Math.max(descuentoPorCantidad, descuentoPorFrecuencia));
-        int totalBase = precioBase * nuevaReserva.getCantidadPersonas();
-        int precioConDescuento = totalBase - (totalBase * mejorDescuento / 100);
-        int precioConIva = (int) Math.round(precioConDescuento * 1.19);
+    /**
+     * Cada fase queda medida en el timer {@value #METRICA_FASES} con la etiqueta "fase".
+     * La persistencia solo cubre lo que se escribe antes del commit.
+     */
+    @Transactional
+    public Reserva crearReserva(Reserva nuevaReserva) {
+        List<String> correos = correosDe(nuevaReserva);
+        Map<String, Cliente> clientes = medir("clientes", () -> {
+            Map<String, Cliente> encontrados = clienteService.buscarPorEmails(correos);
+            verificarClientes(correos, encontrados);
+            return encontrados;
+        });
+        Cliente titular = clientes.get(nuevaReserva.getCorreoTitular());
+
+        DesglosePrecio desglose = medir("precio", () -> cotizar(nuevaReserva, clientes,
+                obtenerReservasDelMes(titular.getId(), nuevaReserva.getFechaHoraReserva())));
+        DisponibilidadKartsService.Intervalo reclamo = medir("disponibilidad", () -> reclamarKarts(nuevaReserva));
+
+        Reserva reservaGuardada = medir("persistencia", () -> {
+            Reserva guardada = reservaRepository.save(nuevaReserva);
+            disponibilidadKartsService.confirmar(reclamo, guardada.getId());
+            ingresoDiarioService.registrar(guardada);
+            visitasMensualesService.registrar(guardada);
+            eventPublisher.publishEvent(new ReservaCreadaEvent(guardada));
+            return guardada;
+        });
+        medir("comprobante", () -> crearComprobante(reservaGuardada, desglose, porId(clientes)));
+        return reservaGuardada;
+    }
 
-        nuevaReserva.setPrecioBase(precioBase);
-        nuevaReserva.setPrecioFinal(precioConIva);
+    private <T> T medir(String fase, Supplier<T> paso) {
+        return meterRegistry.timer(METRICA_FASES, "fase", fase).record(paso);
+    }
 
-        LocalDateTime inicio = nuevaReserva.getFechaHoraReserva();
-        LocalDateTime fin = calcularHoraFin(nuevaReserva.getNumeroVueltas(), inicio);
-        nuevaReserva.setFechaHoraFin(fin);
+    record ReservaPreparada(int fila, Reserva reserva, DesglosePrecio desglose,
+                            DisponibilidadKartsService.Intervalo reclamo) {
+    }
 
-        List<Reserva> reservasSolapadas = reservaRepository.findReservasSolapadas(inicio, fin);
-        List<Long> idsOcupados = reservasSolapadas.stream()
-                .flatMap(r -> r.getIdsKartsReservados().stream())
-                .distinct()
-                .toList();
+    /**
+     * Crea muchas reservas de una vez (torneos, empresas). Todas se validan, se cotizan y
+     * reclaman sus karts en memoria antes de escribir, así que también se detectan choques
+     * entre filas del mismo archivo. Una fila inválida solo se rechaza a sí misma.
+     * Las válidas se guardan en transacciones de {@value #RESERVAS_POR_LOTE} con inserts
+     * agrupados por JDBC; si un lote falla al guardar, se rechazan solo sus filas.
+     */
+    public List<Map<String, Object>> importarReservas(List<Reserva> reservas) {
+        List<Map<String, Object>> resultados = new ArrayList<>(Collections.nCopies(reservas.size(), null));
+
+        Set<String> todosLosCorreos = new HashSet<>();
+        for (Reserva reserva : reservas) {
+            if (reserva.getCorreoTitular() != null) {
+                todosLosCorreos.add(reserva.getCorreoTitular());
+            }
+            if (reserva.getCorreosParticipantes() != null) {
+                todosLosCorreos.addAll(reserva.getCorreosParticipantes());
+            }
+        }
+        Map<String, Cliente> clientes = clienteService.buscarPorEmails(todosLosCorreos);
+
+        // Reservas del titular en el mes, contando también las filas anteriores del mismo lote
+        Map<String, Integer> reservasPorMes = new HashMap<>();
+        List<ReservaPreparada> preparadas = new ArrayList<>();
+        for (int fila = 0; fila < reservas.size(); fila++) {
+            Reserva reserva = reservas.get(fila);
+            try {
+                verificarClientes(correosDe(reserva), clientes);
+                Long titularId = clientes.get(reserva.getCorreoTitular()).getId();
+                String claveMes = titularId + "-" + YearMonth.from(reserva.getFechaHoraReserva());
+                Integer delMes = reservasPorMes.get(claveMes);
+                if (delMes == null) {
+                    delMes = obtenerReservasDelMes(titularId, reserva.getFechaHoraReserva());
+                }
+                DesglosePrecio desglose = cotizar(reserva, clientes, delMes);
+                DisponibilidadKartsService.Intervalo reclamo = reclamarKarts(reserva);
+                reservasPorMes.put(claveMes, delMes + 1);
+                preparadas.add(new ReservaPreparada(fila, reserva, desglose, reclamo));
+            } catch (RuntimeException e) {
+                resultados.set(fila, resultadoRechazado(fila, e));
+            }
+        }
 
-        List<Kart> todosKarts = kartService.obtenerTodos();
-        List<Kart> kartsDisponibles = todosKarts.stream()
-                .filter(k -> !idsOcupados.contains(k.getId()))
-                .toList();
+        Map<Long, Cliente> clientesPorId = porId(clientes);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int desde = 0; desde < preparadas.size(); desde += RESERVAS_POR_LOTE) {
+            List<ReservaPreparada> lote = preparadas.subList(desde, Math.min(desde + RESERVAS_POR_LOTE, preparadas.size()));
+            try {
+                tx.executeWithoutResult(estado -> guardarLote(lote, clientesPorId));
+                for (ReservaPreparada p : lote) {
+                    disponibilidadKartsService.confirmar(p.reclamo(), p.reserva().getId());
+                    Map<String, Object> resultado = new LinkedHashMap<>();
+                    resultado.put("fila", p.fila());
+                    resultado.put("estado", "CREADA");
+                    resultado.put("reservaId", p.reserva().getId());
+                    resultado.put("precioFinal", p.reserva().getPrecioFinal());
+                    resultados.set(p.fila(), resultado);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Error al guardar lote de reservas importadas: " + e.getMessage());
+                for (ReservaPreparada p : lote) {
+                    disponibilidadKartsService.descartar(p.reclamo());
+                    p.reserva().setId(null);
+                    resultados.set(p.fila(), resultadoRechazado(p.fila(), e));
+                }
+            }
+        }
+        return resultados;
+    }
 
-        if (kartsDisponibles.size() < nuevaReserva.getCantidadPersonas()) {
-            throw new IllegalStateException("No hay suficientes karts disponibles para esta reserva.");
+    private void guardarLote(List<ReservaPreparada> lote, Map<Long, Cliente> clientesPorId) {
+        reservaRepository.saveAll(lote.stream().map(ReservaPreparada::reserva).toList());
+        for (ReservaPreparada p : lote) {
+            ingresoDiarioService.registrar(p.reserva());
+            visitasMensualesService.registrar(p.reserva());
+            eventPublisher.publishEvent(new ReservaCreadaEvent(p.reserva()));
+            crearComprobante(p.reserva(), p.desglose(), clientesPorId);
         }
+    }
+
+    private Map<String, Object> resultadoRechazado(int fila, RuntimeException e) {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("fila", fila);
+        resultado.put("estado", "RECHAZADA");
+        resultado.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        return resultado;
+    }
 
-        List<Long> idsAsignados = kartsDisponibles.subList(0, nuevaReserva.getCantidadPersonas()).stream()
-                .map(Kart::getId)
+    // Completa titular, participantes, precios y hora de término; devuelve el desglose para el comprobante
+    private DesglosePrecio cotizar(Reserva reserva, Map<String, Cliente> clientes, int reservasEsteMes) {
+        Cliente titular = clientes.get(reserva.getCorreoTitular());
+        List<Long> idsParticipantes = reserva.getCorreosParticipantes().stream()
+                .map(correo -> clientes.get(correo).getId())
                 .toList();
 
-        nuevaReserva.setIdsKartsReservados(idsAsignados);
-        nuevaReserva.setEstado("CONFIRMADA");
+        reserva.setClienteTitularId(titular.getId());
+        reserva.setIdsClientesReserva(idsParticipantes);
+        reserva.setCantidadPersonas(idsParticipantes.size());
 
-        Reserva reservaGuardada = reservaRepository.save(nuevaReserva);
-        crearComprobante(reservaGuardada, mejorDescuento);
-        return reservaGuardada;
+        DesglosePrecio desglose = motorPrecios.cotizar(reserva.getNumeroVueltas(), reserva.getCantidadPersonas(),
+                reserva.getFechaHoraReserva().toLocalDate(), titular.getFechaNacimiento(), reservasEsteMes);
+
+        reserva.setPrecioBase(desglose.precioBasePorPersona());
+        reserva.setPrecioFinal(desglose.total());
+        reserva.setFechaHoraFin(reserva.getFechaHoraReserva().plusMinutes(desglose.duracionMinutos()));
+        return desglose;
+    }
+
+    /**
+     * Precio que tendría una reserva, sin crearla ni escribir nada. El titular es opcional;
+     * si se indica, se consideran su cumpleaños y sus reservas del mes.
+     */
+    public DesglosePrecio cotizarReserva(int numeroVueltas, int cantidadPersonas, LocalDate fecha, String correoTitular) {
+        LocalDate fechaNacimiento = null;
+        int reservasEsteMes = 0;
+        if (correoTitular != null) {
+            Cliente titular = clienteService.buscarPorEmail(correoTitular);
+            if (titular == null) {
+                throw new IllegalArgumentException("Cliente no encontrado con correo: " + correoTitular);
+            }
+            fechaNacimiento = titular.getFechaNacimiento();
+            reservasEsteMes = obtenerReservasDelMes(titular.getId(), fecha.atStartOfDay());
+        }
+        return motorPrecios.cotizar(numeroVueltas, cantidadPersonas, fecha, fechaNacimiento, reservasEsteMes);
     }
 
-    public List<Reserva> obtenerTodas() {
-        return reservaRepository.findAll();
+    private DisponibilidadKartsService.Intervalo reclamarKarts(Reserva reserva) {
+        DisponibilidadKartsService.Intervalo reclamo = disponibilidadKartsService.reclamarKarts(
+                reserva.getFechaHoraReserva(), reserva.getFechaHoraFin(), reserva.getCantidadPersonas());
+        if (reclamo == null) {
+            meterRegistry.counter("kartingrm.reserva.rechazada", "motivo", "sin_karts").increment();
+            throw new IllegalStateException("No hay suficientes karts disponibles para esta reserva.");
+        }
+        reserva.setIdsKartsReservados(new ArrayList<>(reclamo.idsKarts()));
+        reserva.setEstado("CONFIRMADA");
+        return reclamo;
     }
 
-    private LocalDateTime calcularHoraFin(int numeroVueltas, LocalDateTime inicio) {
-        Tarifa tarifa = tarifaService.obtenerTarifaPorVueltas(numeroVueltas);
-        if (tarifa != null) {
-            return inicio.plusMinutes(tarifa.getDuracionTotalMinutos());
-        } else {
-            throw new IllegalStateException("No se pudo obtener la duración desde tarifa.");
+    /**
+     * Elimina la reserva y su comprobante y revierte sus ingresos diarios en una transacción.
+     * Los karts se liberan en el índice solo si la transacción se confirma.
+     */
+    @Transactional
+    public boolean eliminarReserva(Long reservaId) {
+        Optional<Reserva> reservaOpt = reservaRepository.findById(reservaId);
+        if (reservaOpt.isEmpty()) {
+            return false;
         }
+        Reserva reserva = reservaOpt.get();
+
+        comprobanteRepository.findByReserva(reserva).ifPresent(comprobanteRepository::delete);
+        reservaRepository.delete(reserva);
+        ingresoDiarioService.revertir(reserva);
+        visitasMensualesService.revertir(reserva);
+        eventPublisher.publishEvent(new ReservaEliminadaEvent(reserva));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                disponibilidadKartsService.liberar(reservaId);
+            }
+        });
+        return true;
     }
 
-    private int obtenerPrecioBase(int numeroVueltas) {
-        return tarifaService.obtenerPrecio(numeroVueltas);
+    public List<Reserva> obtenerPagina(Long despuesDeId, int limite) {
+        return reservaRepository.findByIdGreaterThanOrderByIdAsc(despuesDeId, Limit.of(limite));
     }
 
-    private Long obtenerClienteIdPorCorreo(String correo) {
-        Cliente cliente = clienteService.buscarPorEmail(correo);
-        if (cliente != null) {
-            return cliente.getId();
-        } else {
-            throw new IllegalArgumentException("Cliente no encontrado con correo: " + correo);
+    public List<Reserva> obtenerPaginaEntreFechas(LocalDateTime inicio, LocalDateTime fin,
+                                                  LocalDateTime despuesDeFecha, Long despuesDeId, int limite) {
+        // Sin cursor se parte desde el inicio del rango, incluyendo reservas justo a esa hora
+        if (despuesDeFecha == null) {
+            despuesDeFecha = inicio;
+            despuesDeId = 0L;
         }
+        return reservaRepository.findPaginaEntreFechas(inicio, fin, despuesDeFecha, despuesDeId, Limit.of(limite));
+    }
+
+    public void exportarTodas(OutputStream salida) throws IOException {
+        exportacionNdjsonService.exportar(reservaRepository::streamTodas, salida);
     }
 
-    private int obtenerDescuentoEspecial(Long clienteId, LocalDate fecha) {
-        try {
-            return tarifaEspService.obtenerDescuento(clienteId, fecha);
-        } catch (Exception e) {
-            return 0;
+    private List<String> correosDe(Reserva reserva) {
+        if (reserva.getCorreoTitular() == null || reserva.getCorreosParticipantes() == null
+                || reserva.getFechaHoraReserva() == null) {
+            throw new IllegalArgumentException("La reserva debe indicar fecha, correo del titular y participantes.");
         }
+        List<String> correos = new ArrayList<>();
+        correos.add(reserva.getCorreoTitular());
+        correos.addAll(reserva.getCorreosParticipantes());
+        return correos;
     }
 
-    private int obtenerDescuentoPorCantidad(int cantidad) {
-        return descuentoPorCantidadService.calcularDescuentoPorCantidad(cantidad);
+    // Informa cada correo desconocido de una vez
+    private void verificarClientes(List<String> correos, Map<String, Cliente> clientes) {
+        String desconocidos = correos.stream()
+                .filter(correo -> !clientes.containsKey(correo))
+                .distinct()
+                .map(correo -> "Cliente no encontrado con correo: " + correo)
+                .collect(Collectors.joining("; "));
+        if (!desconocidos.isEmpty()) {
+            throw new IllegalArgumentException(desconocidos);
+        }
     }
 
-    private int obtenerDescuentoPorFrecuencia(int frecuencia) {
-        return descuentoFrecuenteService.calcularDescuentoPorFrecuencia(frecuencia);
+    private Map<Long, Cliente> porId(Map<String, Cliente> clientes) {
+        Map<Long, Cliente> clientesPorId = new HashMap<>();
+        clientes.values().forEach(c -> clientesPorId.put(c.getId(), c));
+        return clientesPorId;
     }
 
     private int obtenerReservasDelMes(Long clienteId, LocalDateTime fecha) {
-        LocalDateTime inicioMes = fecha.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime finMes = inicioMes.plusMonths(1).minusNanos(1);
-        return reservaRepository.contarReservasPorMes(clienteId, inicioMes, finMes);
+        return visitasMensualesService.contar(clienteId, fecha);
     }
 
-    public Comprobante crearComprobante(Reserva reserva, int mejorDescuento) {
-        String nombreTitular = obtenerNombrePorId(reserva.getClienteTitularId());
+    public Comprobante crearComprobante(Reserva reserva, DesglosePrecio desglose) {
+        List<Long> ids = new ArrayList<>(reserva.getIdsClientesReserva());
+        ids.add(reserva.getClienteTitularId());
+        return crearComprobante(reserva, desglose, clienteService.buscarPorIds(ids));
+    }
+
+    private Comprobante crearComprobante(Reserva reserva, DesglosePrecio desglose, Map<Long, Cliente> clientesPorId) {
+        String nombreTitular = obtenerNombre(clientesPorId.get(reserva.getClienteTitularId()));
         List<String> nombresParticipantes = reserva.getIdsClientesReserva().stream()
-                .map(this::obtenerNombrePorId)
+                .map(id -> obtenerNombre(clientesPorId.get(id)))
                 .toList();
 
-        int tarifaBasePorPersona = reserva.getPrecioBase();
-        int tarifaBase = tarifaBasePorPersona * reserva.getCantidadPersonas();
-        int subtotal = tarifaBase - (tarifaBase * mejorDescuento / 100);
-        int iva = (int) Math.round(subtotal * 0.19);
-        int total = subtotal + iva;
-
         Comprobante comprobante = new Comprobante();
         comprobante.setReserva(reserva);
         comprobante.setNombreTitular(nombreTitular);
         comprobante.setNombresParticipantes(nombresParticipantes);
-        comprobante.setTarifaBase(tarifaBase);
-        comprobante.setDescuentoAplicado(mejorDescuento);
-        comprobante.setSubtotal(subtotal);
-        comprobante.setIva(iva);
-        comprobante.setTotal(total);
+        comprobante.setTarifaBase(desglose.tarifaBase());
+        comprobante.setDescuentoAplicado(desglose.descuentoAplicado());
+        comprobante.setSubtotal(desglose.subtotal());
+        comprobante.setIva(desglose.iva());
+        comprobante.setTotal(desglose.total());
 
         comprobante = comprobanteRepository.save(comprobante);
 
-        try {
-            comprobanteService.enviarComprobantePorEmail(comprobante);
-        } catch (Exception e) {
-            System.err.println("Error al enviar comprobante por correo: " + e.getMessage());
+        // El correo sale en segundo plano; aquí solo queda registrado en el outbox
+        Set<String> destinatarios = new LinkedHashSet<>();
+        destinatarios.add(reserva.getCorreoTitular());
+        if (reserva.getCorreosParticipantes() != null) {
+            destinatarios.addAll(reserva.getCorreosParticipantes());
         }
+        envioComprobantesService.encolar(comprobante, destinatarios);
 
         return comprobante;
     }
 
-    private String obtenerNombrePorId(Long clienteId) {
-        return clienteService.buscarPorId(clienteId)
-                .map(Cliente::getNombre)
-                .orElse("Desconocido");
+    private String obtenerNombre(Cliente cliente) {
+        return cliente != null ? cliente.getNombre() : "Desconocido";
+    }
+
+    /**
+     * Inicios posibles para un grupo en un día, cada {@code pasoMinutos} y terminando
+     * antes del cierre. El horario es el mismo que muestra el frontend: de 14:00 a 22:00
+     * entre semana y desde las 10:00 en fines de semana y días especiales.
+     */
+    public List<Map<String, Object>> buscarHorariosLibres(LocalDate fecha, int numeroVueltas,
+                                                          int cantidadPersonas, int pasoMinutos) {
+        Tarifa tarifa = tarifaService.obtenerTarifaPorVueltas(numeroVueltas);
+        if (tarifa == null) {
+            throw new IllegalArgumentException("No existe una tarifa de " + numeroVueltas + " vueltas");
+        }
+        int duracion = tarifa.getDuracionTotalMinutos();
+        LocalDateTime apertura = fecha.atTime(horaApertura(fecha), 0);
+        LocalDateTime cierre = fecha.atTime(HORA_CIERRE, 0);
+
+        List<Map<String, Object>> horarios = new ArrayList<>();
+        disponibilidadKartsService.buscarHorariosLibres(apertura, cierre, duracion, cantidadPersonas, pasoMinutos)
+                .forEach((inicio, libres) -> {
+                    Map<String, Object> horario = new LinkedHashMap<>();
+                    horario.put("inicio", inicio.toString());
+                    horario.put("fin", inicio.plusMinutes(duracion).toString());
+                    horario.put("kartsLibres", libres);
+                    horarios.add(horario);
+                });
+        return horarios;
+    }
+
+    private int horaApertura(LocalDate fecha) {
+        DayOfWeek dia = fecha.getDayOfWeek();
+        boolean finDeSemana = dia == DayOfWeek.SATURDAY || dia == DayOfWeek.SUNDAY;
+        return finDeSemana || tarifaEspService.esFechaEspecial(fecha) ? HORA_APERTURA_FESTIVO : HORA_APERTURA;
     }
 
     public List<Reserva> obtenerReservasEntreFechas(LocalDateTime inicio, LocalDateTime fin) {
@@ -198,9 +423,7 @@ public class ReservaService {
     }
 
     public int obtenerReservasDelMesFront(Long clienteId, LocalDateTime fecha) {
-        LocalDateTime inicioMes = fecha.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime finMes = inicioMes.plusMonths(1).minusNanos(1);
-        return reservaRepository.contarReservasPorMes(clienteId, inicioMes, finMes);
+        return visitasMensualesService.contar(clienteId, fecha);
     }
 
 }
@@ -0,0 +1,40 @@
+package com.example.backend.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Reserva, Comprobante y EnvioComprobante pasaron de IDENTITY a secuencias. En una base
+ * que ya tenía datos la secuencia nueva parte en 1, así que al arrancar se reinicia por
+ * encima del mayor id existente. El margen de un bloque cubre el optimizador de Hibernate.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class SecuenciasService {
+
+    private static final int TAMANO_BLOQUE = 50;
+
+    // tabla -> secuencia
+    private static final Map<String, String> SECUENCIAS = Map.of(
+            "reserva", "reserva_seq",
+            "comprobante", "comprobante_seq",
+            "envio_comprobante", "envio_comprobante_seq");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void ajustar() {
+        SECUENCIAS.forEach((tabla, secuencia) -> {
+            Long maximo = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + tabla, Long.class);
+            if (maximo != null) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + secuencia + " RESTART WITH " + (maximo + TAMANO_BLOQUE + 1));
+            }
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.backend.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rangos de descuento compilados a arreglos primitivos.
+ * Para conteos chicos el porcentaje sale directo de un arreglo denso indexado por el conteo;
+ * por encima se busca en binario sobre los límites. Ninguna consulta reserva memoria.
+ *
+ * Los rangos deben ser contiguos: se rechazan solapes y huecos entre ellos. Las reglas ya
+ * guardadas que no cumplen eso se cargan con {@link #desdeGuardados}, que recorre los rangos
+ * en orden y usa el primero que calce, como se hacía antes de compilarlas.
+ */
+public final class TablaDescuentos {
+
+    private static final int LIMITE_DENSO = 1024;
+
+    public static final TablaDescuentos VACIA = new TablaDescuentos(List.of());
+
+    public record Rango(int min, int max, int porcentaje) {
+    }
+
+    private final int[] porConteo;
+    private final int[] minimos;
+    private final int[] maximos;
+    private final int[] porcentajes;
+
+    // Solo para reglas guardadas que no pasan la validación; null en una tabla compilada
+    private final Rango[] enOrden;
+
+    public TablaDescuentos(List<Rango> rangos) {
+        List<Rango> ordenados = new ArrayList<>(rangos);
+        ordenados.sort(Comparator.comparingInt(Rango::min));
+        validar(ordenados);
+        enOrden = null;
+
+        int n = ordenados.size();
+        minimos = new int[n];
+        maximos = new int[n];
+        porcentajes = new int[n];
+        for (int i = 0; i < n; i++) {
+            minimos[i] = ordenados.get(i).min();
+            maximos[i] = ordenados.get(i).max();
+            porcentajes[i] = ordenados.get(i).porcentaje();
+        }
+
+        int largo = n == 0 ? 0 : Math.min(maximos[n - 1], LIMITE_DENSO - 1) + 1;
+        porConteo = new int[largo];
+        for (int i = 0; i < n && minimos[i] < largo; i++) {
+            Arrays.fill(porConteo, minimos[i], Math.min(maximos[i], largo - 1) + 1, porcentajes[i]);
+        }
+    }
+
+    private TablaDescuentos(Rango[] enOrden) {
+        this.enOrden = enOrden;
+        porConteo = new int[0];
+        minimos = new int[0];
+        maximos = new int[0];
+        porcentajes = new int[0];
+    }
+
+    /**
+     * Tabla para reglas que ya están en la base. Si no son válidas no se rechazan: se
+     * informa el problema y se busca en forma lineal.
+     */
+    public static TablaDescuentos desdeGuardados(String nombre, List<Rango> rangos) {
+        try {
+            return new TablaDescuentos(rangos);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Reglas de " + nombre + " inválidas (" + e.getMessage()
+                    + "), se usa búsqueda lineal sobre " + rangos);
+            return new TablaDescuentos(rangos.toArray(new Rango[0]));
+        }
+    }
+
+    public boolean esValida() {
+        return enOrden == null;
+    }
+
+    public int buscar(int conteo) {
+        if (enOrden != null) {
+            for (Rango r : enOrden) {
+                if (conteo >= r.min() && conteo <= r.max()) {
+                    return r.porcentaje();
+                }
+            }
+            return 0;
+        }
+        if (conteo >= 0 && conteo < porConteo.length) {
+            return porConteo[conteo];
+        }
+        int i = Arrays.binarySearch(minimos, conteo);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return i >= 0 && conteo <= maximos[i] ? porcentajes[i] : 0;
+    }
+
+    private static void validar(List<Rango> ordenados) {
+        Rango anterior = null;
+        for (Rango r : ordenados) {
+            if (r.min() < 0 || r.max() < r.min()) {
+                throw new IllegalArgumentException("Rango inválido: " + r.min() + "-" + r.max());
+            }
+            if (r.porcentaje() < 0 || r.porcentaje() > 100) {
+                throw new IllegalArgumentException("Porcentaje inválido en el rango " + r.min() + "-" + r.max());
+            }
+            if (anterior != null && r.min() <= anterior.max()) {
+                throw new IllegalArgumentException("Los rangos " + anterior.min() + "-" + anterior.max()
+                        + " y " + r.min() + "-" + r.max() + " se solapan");
+            }
+            if (anterior != null && r.min() > anterior.max() + 1) {
+                throw new IllegalArgumentException("Hay un hueco entre los rangos " + anterior.min() + "-"
+                        + anterior.max() + " y " + r.min() + "-" + r.max());
+            }
+            anterior = r;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.example.backend.services;
 
 import com.example.backend.entities.TarifaEsp;
 import com.example.backend.repositories.TarifaEspRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,18 +21,63 @@ public class TarifaEspService {
     @Autowired
     private ClienteService clienteService;
 
+    // Fechas especiales por año, un bit por día del año; se reemplaza completo al cambiar
+    private volatile Map<Integer, BitSet> fechasEspecialesPorAnio = Map.of();
+
+    @PostConstruct
+    public void recargarCalendario() {
+        Map<Integer, BitSet> calendario = new HashMap<>();
+        for (TarifaEsp t : tarifaEspRepository.findAll()) {
+            LocalDate fecha = t.getFechaEspecial();
+            if (fecha != null) {
+                calendario.computeIfAbsent(fecha.getYear(), anio -> new BitSet(367)).set(fecha.getDayOfYear());
+            }
+        }
+        fechasEspecialesPorAnio = Map.copyOf(calendario);
+    }
 
     public int obtenerDescuento(Long clienteId, LocalDate fecha) {
-        // 1. Cumpleaños
-        int dCumple = 0;
+        LocalDate fechaNacimiento = null;
         try {
-            LocalDate fechaNacimiento = clienteService.obtenerFechaNacimiento(clienteId);
-            if (fecha.getDayOfMonth() == fechaNacimiento.getDayOfMonth() &&
-                    fecha.getMonth() == fechaNacimiento.getMonth()) {
-                dCumple = 50;
-            }
+            fechaNacimiento = clienteService.obtenerFechaNacimiento(clienteId);
         } catch (RuntimeException e) {
-            // Cliente no encontrado, dCumple se mantiene en 0
+            // Cliente no encontrado, no hay descuento por cumpleaños
+        }
+        return calcularDescuento(fechaNacimiento, fecha);
+    }
+
+    // Para cotizar sin cargar al cliente; sin fecha de nacimiento no hay descuento por cumpleaños
+    public int obtenerDescuentoPorFecha(LocalDate fechaNacimiento, LocalDate fecha) {
+        return calcularDescuento(fechaNacimiento, fecha);
+    }
+
+    public boolean esFechaEspecial(LocalDate fecha) {
+        BitSet dias = fechasEspecialesPorAnio.get(fecha.getYear());
+        return dias != null && dias.get(fecha.getDayOfYear());
+    }
+
+    public List<TarifaEsp> obtenerFechasEspeciales() {
+        return tarifaEspRepository.findAll();
+    }
+
+    public TarifaEsp guardarFechaEspecial(TarifaEsp tarifaEsp) {
+        TarifaEsp guardada = tarifaEspRepository.save(tarifaEsp);
+        recargarCalendario();
+        return guardada;
+    }
+
+    public void eliminarFechaEspecial(Long id) {
+        tarifaEspRepository.deleteById(id);
+        recargarCalendario();
+    }
+
+    private int calcularDescuento(LocalDate fechaNacimiento, LocalDate fecha) {
+        // 1. Cumpleaños
+        int dCumple = 0;
+        if (fechaNacimiento != null &&
+                fecha.getDayOfMonth() == fechaNacimiento.getDayOfMonth() &&
+                fecha.getMonth() == fechaNacimiento.getMonth()) {
+            dCumple = 50;
         }
 
         // 2. Fin de semana
@@ -37,8 +85,7 @@ public class TarifaEspService {
                 fecha.getDayOfWeek() == DayOfWeek.SUNDAY) ? 10 : 0;
 
         // 3. Fecha especial (feriado)
-        TarifaEsp fechaEspecial = tarifaEspRepository.findByFechaEspecial(fecha);
-        int dFeriado = (fechaEspecial != null) ? 20 : 0;
+        int dFeriado = esFechaEspecial(fecha) ? 20 : 0;
 
         // 4. Mayor descuento aplica
         return Math.max(dCumple, Math.max(dFinde, dFeriado));
@@ -2,11 +2,15 @@ package com.example.backend.services;
 
 import com.example.backend.entities.Tarifa;
 import com.example.backend.repositories.TarifaRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class TarifaService {
@@ -14,6 +18,22 @@ public class TarifaService {
     @Autowired
     private TarifaRepository tarifaRepository;
 
+    // Catálogo inmutable por número de vueltas; se reemplaza completo cuando cambian las tarifas.
+    // Guarda copias desacopladas de las entidades y entrega otra copia en cada consulta
+    private volatile Map<Integer, Tarifa> catalogo = Map.of();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    @PostConstruct
+    public void recargarCatalogo() {
+        Map<Integer, Tarifa> nuevo = new HashMap<>();
+        for (Tarifa t : tarifaRepository.findAll()) {
+            nuevo.put(t.getNumeroVueltas(), copiar(t));
+        }
+        catalogo = Map.copyOf(nuevo);
+    }
+
     public List<Tarifa> obtenerTodas() {
         return tarifaRepository.findAll();
     }
@@ -22,16 +42,20 @@ public class TarifaService {
         return tarifaRepository.findById(id);
     }
 
-    public Tarifa guardarTarifa(Tarifa tarifa) {
-        return tarifaRepository.save(tarifa);
+    // Sincronizado para que dos ediciones no dejen publicado el catálogo leído primero
+    public synchronized Tarifa guardarTarifa(Tarifa tarifa) {
+        Tarifa guardada = tarifaRepository.save(tarifa);
+        recargarCatalogo();
+        return guardada;
     }
 
-    public void eliminarTarifa(Long id) {
+    public synchronized void eliminarTarifa(Long id) {
         tarifaRepository.deleteById(id);
+        recargarCatalogo();
     }
 
     public int obtenerPrecio(int NumeroVueltas) {
-        Tarifa tarifa = tarifaRepository.findByNumeroVueltas(NumeroVueltas);
+        Tarifa tarifa = obtenerTarifaPorVueltas(NumeroVueltas);
         if (tarifa == null) {
             throw new IllegalArgumentException("No se encontró una tarifa con num vueltas total de " + NumeroVueltas);
         }
@@ -41,7 +65,26 @@ public class TarifaService {
     }
 
     public Tarifa obtenerTarifaPorVueltas(int numeroVueltas) {
-        return tarifaRepository.findByNumeroVueltas(numeroVueltas);
+        Tarifa tarifa = catalogo.get(numeroVueltas);
+        if (tarifa != null) {
+            aciertos.increment();
+            return copiar(tarifa);
+        }
+        fallos.increment();
+        return null;
+    }
+
+    public Map<String, Long> obtenerEstadisticasCatalogo() {
+        return Map.of(
+                "tarifas", (long) catalogo.size(),
+                "aciertos", aciertos.sum(),
+                "fallos", fallos.sum()
+        );
+    }
+
+    private static Tarifa copiar(Tarifa t) {
+        return new Tarifa(t.getId(), t.getNumeroVueltas(), t.getTiempoMaximoMinutos(),
+                t.getDuracionTotalMinutos(), t.getPrecio());
     }
 
 }
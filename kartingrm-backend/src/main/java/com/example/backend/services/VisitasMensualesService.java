@@ -0,0 +1,255 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Reserva;
+import com.example.backend.entities.VisitaMensual;
+import com.example.backend.repositories.ReservaRepository;
+import com.example.backend.repositories.VisitaMensualRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contadores de reservas por cliente titular y mes (tabla {@link VisitaMensual}), una fila
+ * por cliente y mes. Se actualizan dentro de la transacción de cada reserva creada o eliminada, y las
+ * lecturas pasan por un cache en memoria protegido con cerrojos por franja: una
+ * entrada se carga y se invalida con el cerrojo de su franja tomado, y la invalidación
+ * ocurre al terminar la transacción que modificó el contador. El cache se poda de meses
+ * pasados al llenarse.
+ */
+@Service
+public class VisitasMensualesService {
+
+    private static final int NUMERO_FRANJAS = 32;
+    private static final int MAX_CONTADORES_EN_CACHE = 10_000;
+
+    // SQLSTATE de violación de restricción única, igual en PostgreSQL y H2
+    private static final String CLAVE_DUPLICADA = "23505";
+
+    @Autowired
+    private VisitaMensualRepository visitaMensualRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    record Clave(Long clienteId, YearMonth mes) {
+    }
+
+    private final Map<Clave, Long> cache = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] franjas = new ReentrantLock[NUMERO_FRANJAS];
+
+    public VisitasMensualesService() {
+        for (int i = 0; i < NUMERO_FRANJAS; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    // La primera vez la tabla se llena desde las reservas existentes
+    @PostConstruct
+    public void iniciar() {
+        if (visitaMensualRepository.count() == 0) {
+            conciliar(false);
+        }
+    }
+
+    public int contar(Long clienteId, LocalDateTime fecha) {
+        Clave clave = new Clave(clienteId, YearMonth.from(fecha));
+        Long cantidad = cache.get(clave);
+        if (cantidad != null) {
+            return cantidad.intValue();
+        }
+        // Si esta transacción ya cambió el contador, su valor aún no es definitivo
+        if (pendientes(false).contains(clave)) {
+            return (int) leer(clave);
+        }
+
+        ReentrantLock franja = franja(clave);
+        franja.lock();
+        try {
+            if (cache.size() >= MAX_CONTADORES_EN_CACHE) {
+                podarCache();
+            }
+            return cache.computeIfAbsent(clave, this::leer).intValue();
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    @Transactional
+    public void registrar(Reserva reserva) {
+        acumular(reserva, 1);
+    }
+
+    @Transactional
+    public void revertir(Reserva reserva) {
+        acumular(reserva, -1);
+    }
+
+    private void acumular(Reserva reserva, long delta) {
+        if (reserva.getClienteTitularId() == null) {
+            return;
+        }
+        sumar(new Clave(reserva.getClienteTitularId(), YearMonth.from(reserva.getFechaHoraReserva())), delta);
+    }
+
+    private void sumar(Clave clave, long delta) {
+        int anio = clave.mes().getYear();
+        int mes = clave.mes().getMonthValue();
+        if (visitaMensualRepository.sumar(clave.clienteId(), anio, mes, delta) == 0
+                && !insertarContador(clave, delta)) {
+            // Otra transacción creó el contador entre el UPDATE y el INSERT
+            visitaMensualRepository.sumar(clave.clienteId(), anio, mes, delta);
+        }
+        pendientes(true).add(clave);
+    }
+
+    // Igual que los buckets de ingresos diarios: el INSERT va bajo un savepoint; false si ya existía
+    private boolean insertarContador(Clave clave, long cantidad) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            Savepoint savepoint = con.setSavepoint();
+            try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO visita_mensual (cliente_id, anio, mes, cantidad) VALUES (?, ?, ?, ?)")) {
+                ps.setObject(1, clave.clienteId());
+                ps.setInt(2, clave.mes().getYear());
+                ps.setInt(3, clave.mes().getMonthValue());
+                ps.setLong(4, cantidad);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                if (!CLAVE_DUPLICADA.equals(e.getSQLState())) {
+                    throw e;
+                }
+                con.rollback(savepoint);
+                return false;
+            }
+            con.releaseSavepoint(savepoint);
+            return true;
+        }));
+    }
+
+    /**
+     * Compara los contadores con las reservas y corrige los que no coinciden.
+     * Con {@code soloVerificar} no escribe y solo cuenta los contadores distintos.
+     * Una reserva confirmada entre las dos lecturas puede producir una corrección
+     * de más que la pasada siguiente deshace.
+     */
+    public Map<String, Object> conciliar(boolean soloVerificar) {
+        long t0 = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Map<String, Object> resumen = new LinkedHashMap<>();
+
+        tx.executeWithoutResult(estado -> {
+            Map<Clave, Long> esperado = agrupar(reservaRepository.contarPorClienteYMes());
+            Map<Clave, Long> actual = agrupar(visitaMensualRepository.listarContadores());
+
+            Set<Clave> claves = new HashSet<>(esperado.keySet());
+            claves.addAll(actual.keySet());
+            int distintos = 0;
+            for (Clave clave : claves) {
+                long delta = esperado.getOrDefault(clave, 0L) - actual.getOrDefault(clave, 0L);
+                if (delta != 0) {
+                    distintos++;
+                    if (!soloVerificar) {
+                        sumar(clave, delta);
+                    }
+                }
+            }
+            resumen.put("contadores", esperado.size());
+            resumen.put(soloVerificar ? "contadoresDistintos" : "contadoresCorregidos", distintos);
+        });
+        resumen.put("milisegundos", System.currentTimeMillis() - t0);
+        return resumen;
+    }
+
+    @Scheduled(cron = "${kartingrm.visitas.conciliacion-cron:0 30 4 * * *}")
+    public void conciliarProgramado() {
+        Map<String, Object> resumen = conciliar(false);
+        if (!Integer.valueOf(0).equals(resumen.get("contadoresCorregidos"))) {
+            System.err.println("Visitas mensuales corregidas al conciliar: " + resumen);
+        }
+    }
+
+    private Map<Clave, Long> agrupar(List<Object[]> filas) {
+        Map<Clave, Long> porClave = new HashMap<>();
+        for (Object[] fila : filas) {
+            Clave clave = new Clave((Long) fila[0],
+                    YearMonth.of(((Number) fila[1]).intValue(), ((Number) fila[2]).intValue()));
+            porClave.merge(clave, ((Number) fila[3]).longValue(), Long::sum);
+        }
+        return porClave;
+    }
+
+    private long leer(Clave clave) {
+        return visitaMensualRepository.findByClienteIdAndAnioAndMes(
+                        clave.clienteId(), clave.mes().getYear(), clave.mes().getMonthValue())
+                .map(VisitaMensual::getCantidad)
+                .orElse(0L);
+    }
+
+    // Las reservas nuevas casi nunca caen en meses pasados; si aun así no alcanza, se vacía
+    private void podarCache() {
+        YearMonth actual = YearMonth.now();
+        cache.keySet().removeIf(clave -> clave.mes().isBefore(actual));
+        if (cache.size() >= MAX_CONTADORES_EN_CACHE) {
+            cache.clear();
+        }
+    }
+
+    private void invalidar(Clave clave) {
+        ReentrantLock franja = franja(clave);
+        franja.lock();
+        try {
+            cache.remove(clave);
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    private ReentrantLock franja(Clave clave) {
+        return franjas[Math.floorMod(clave.hashCode(), NUMERO_FRANJAS)];
+    }
+
+    // Claves modificadas por la transacción actual; se invalidan cuando termina (confirme o no)
+    @SuppressWarnings("unchecked")
+    private Set<Clave> pendientes(boolean crear) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Set.of();
+        }
+        Set<Clave> claves = (Set<Clave>) TransactionSynchronizationManager.getResource(this);
+        if (claves == null && crear) {
+            Set<Clave> nuevas = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, nuevas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(VisitasMensualesService.this);
+                    nuevas.forEach(VisitasMensualesService.this::invalidar);
+                }
+            });
+            claves = nuevas;
+        }
+        return claves != null ? claves : Set.of();
+    }
+}
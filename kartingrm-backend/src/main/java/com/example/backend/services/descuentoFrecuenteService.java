@@ -3,23 +3,65 @@ package com.example.backend.services;
 
 import com.example.backend.entities.descuentoFrecuente;
 import com.example.backend.repositories.descuentoFrecuenteRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
 @Service
 public class descuentoFrecuenteService {
 
     @Autowired
     private descuentoFrecuenteRepository repository;
 
+    private volatile TablaDescuentos tabla = TablaDescuentos.VACIA;
+
+    @PostConstruct
+    public void recompilar() {
+        tabla = TablaDescuentos.desdeGuardados("descuento por frecuencia", rangos(repository.findAll()));
+    }
+
     public int calcularDescuentoPorFrecuencia(int FrecuenciaPersonas) {
-        return repository.findAll().stream()
-                .filter(d -> FrecuenciaPersonas >= d.getMinVisitas() && FrecuenciaPersonas <= d.getMaxVisitas())
-                .mapToInt(descuentoFrecuente::getPorcentaje)
-                .findFirst()
-                .orElse(0);
+        return tabla.buscar(FrecuenciaPersonas);
     }
 
+    public List<descuentoFrecuente> obtenerTodos() {
+        return repository.findAll();
+    }
 
-}
+    // Valida la tabla resultante antes de escribir, para no dejar reglas inconsistentes
+    public synchronized descuentoFrecuente guardar(descuentoFrecuente descuento) {
+        List<descuentoFrecuente> resultantes = Stream.concat(
+                repository.findAll().stream().filter(d -> !Objects.equals(d.getId(), descuento.getId())),
+                Stream.of(descuento)).toList();
+        compilar(resultantes);
+
+        descuentoFrecuente guardado = repository.save(descuento);
+        recompilar();
+        return guardado;
+    }
 
+    // Si las reglas guardadas ya son inválidas se permite eliminar, para poder corregirlas
+    public synchronized void eliminar(Long id) {
+        if (tabla.esValida()) {
+            compilar(repository.findAll().stream().filter(d -> !d.getId().equals(id)).toList());
+        }
+        repository.deleteById(id);
+        recompilar();
+    }
+
+    private TablaDescuentos compilar(List<descuentoFrecuente> descuentos) {
+        return new TablaDescuentos(rangos(descuentos));
+    }
+
+    private List<TablaDescuentos.Rango> rangos(List<descuentoFrecuente> descuentos) {
+        return descuentos.stream()
+                .map(d -> new TablaDescuentos.Rango(d.getMinVisitas(), d.getMaxVisitas(), d.getPorcentaje()))
+                .toList();
+    }
+
+
+}
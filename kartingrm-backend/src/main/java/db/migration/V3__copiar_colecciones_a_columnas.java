@@ -0,0 +1,104 @@
+package db.migration;
+
+import com.example.backend.entities.ListaIdsConverter;
+import com.example.backend.entities.ListaTextosConverter;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Copia las antiguas tablas de {@code @ElementCollection} a las columnas que agregó V2
+ * (mismo formato que los converters de las entidades) y luego elimina esas tablas.
+ * Está en Java porque el formato de la columna y la agregación por dueño no se
+ * escriben igual en PostgreSQL y H2. Una tabla que ya no existe se salta.
+ */
+public class V3__copiar_colecciones_a_columnas extends BaseJavaMigration {
+
+    private static final int FILAS_POR_LOTE = 500;
+
+    record Tabla(String nombre, String columnaDuenio, String columnaValor, String tablaDestino, String columnaDestino) {
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection con = context.getConnection();
+        ListaIdsConverter ids = new ListaIdsConverter();
+        ListaTextosConverter textos = new ListaTextosConverter();
+
+        copiar(con, new Tabla("reserva_ids_clientes_reserva", "reserva_id", "ids_clientes_reserva",
+                "reserva", "ids_clientes_reserva"), rs -> rs.getLong(2), ids::convertToDatabaseColumn);
+        copiar(con, new Tabla("reserva_ids_karts_reservados", "reserva_id", "ids_karts_reservados",
+                "reserva", "ids_karts_reservados"), rs -> rs.getLong(2), ids::convertToDatabaseColumn);
+        copiar(con, new Tabla("comprobante_nombres_participantes", "comprobante_id", "nombres_participantes",
+                "comprobante", "nombres_participantes"), rs -> rs.getString(2), textos::convertToDatabaseColumn);
+    }
+
+    interface Lector<T> {
+        T leer(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Recorre la tabla vieja ordenada por dueño, arma la lista de cada uno y la escribe
+     * solo donde la columna nueva sigue vacía.
+     */
+    <T> void copiar(Connection con, Tabla tabla, Lector<T> lector, Function<List<T>, String> codificar)
+            throws SQLException {
+        if (!existeTabla(con, tabla.nombre())) {
+            return;
+        }
+        String update = "UPDATE " + tabla.tablaDestino() + " SET " + tabla.columnaDestino() + " = ? WHERE id = ? AND "
+                + tabla.columnaDestino() + " IS NULL";
+        try (Statement select = con.createStatement();
+             PreparedStatement ps = con.prepareStatement(update)) {
+            select.setFetchSize(FILAS_POR_LOTE);
+            ResultSet rs = select.executeQuery("SELECT " + tabla.columnaDuenio() + ", " + tabla.columnaValor()
+                    + " FROM " + tabla.nombre() + " ORDER BY " + tabla.columnaDuenio());
+            Long actual = null;
+            List<T> valores = new ArrayList<>();
+            int enLote = 0;
+            while (rs.next()) {
+                long duenio = rs.getLong(1);
+                if (actual != null && actual != duenio) {
+                    agregar(ps, codificar.apply(valores), actual);
+                    valores.clear();
+                    if (++enLote == FILAS_POR_LOTE) {
+                        ps.executeBatch();
+                        enLote = 0;
+                    }
+                }
+                actual = duenio;
+                valores.add(lector.leer(rs));
+            }
+            if (actual != null) {
+                agregar(ps, codificar.apply(valores), actual);
+            }
+            ps.executeBatch();
+        }
+        try (Statement drop = con.createStatement()) {
+            drop.execute("DROP TABLE " + tabla.nombre());
+        }
+    }
+
+    private void agregar(PreparedStatement ps, String columna, long duenio) throws SQLException {
+        ps.setString(1, columna);
+        ps.setLong(2, duenio);
+        ps.addBatch();
+    }
+
+    // PostgreSQL guarda los nombres en minúsculas y H2 en mayúsculas
+    private boolean existeTabla(Connection con, String nombre) throws SQLException {
+        DatabaseMetaData meta = con.getMetaData();
+        for (String candidato : List.of(nombre, nombre.toUpperCase())) {
+            try (ResultSet rs = meta.getTables(null, con.getSchema(), candidato, new String[]{"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+-- Esquema que generaba spring.jpa.hibernate.ddl-auto=update antes de pasar a Flyway.
+-- Las bases existentes ya lo tienen: se marcan en esta versión (baseline) y parten en V2.
+
+CREATE TABLE cliente (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    rut VARCHAR(255),
+    nombre VARCHAR(255),
+    email VARCHAR(255),
+    telefono VARCHAR(255),
+    fecha_nacimiento DATE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE kart (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    modelo VARCHAR(255),
+    codigo VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tarifa (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    numero_vueltas INTEGER NOT NULL,
+    tiempo_maximo_minutos INTEGER NOT NULL,
+    duracion_total_minutos INTEGER NOT NULL,
+    precio INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tarifa_esp (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    fecha_especial DATE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE descuento_frecuente (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    min_visitas INTEGER NOT NULL,
+    max_visitas INTEGER NOT NULL,
+    porcentaje INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE descuento_por_cantidad (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    min_personas INTEGER NOT NULL,
+    max_personas INTEGER NOT NULL,
+    porcentaje INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE reserva (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    cliente_titular_id BIGINT,
+    fecha_hora_reserva TIMESTAMP(6),
+    fecha_hora_fin TIMESTAMP(6),
+    cantidad_personas INTEGER NOT NULL,
+    numero_vueltas INTEGER NOT NULL,
+    precio_base INTEGER NOT NULL,
+    precio_final INTEGER NOT NULL,
+    estado VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE reserva_ids_clientes_reserva (
+    reserva_id BIGINT NOT NULL,
+    ids_clientes_reserva BIGINT,
+    CONSTRAINT fk_reserva_ids_clientes_reserva FOREIGN KEY (reserva_id) REFERENCES reserva (id)
+);
+
+CREATE TABLE reserva_ids_karts_reservados (
+    reserva_id BIGINT NOT NULL,
+    ids_karts_reservados BIGINT,
+    CONSTRAINT fk_reserva_ids_karts_reservados FOREIGN KEY (reserva_id) REFERENCES reserva (id)
+);
+
+CREATE TABLE comprobante (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    reserva_id BIGINT UNIQUE,
+    nombre_titular VARCHAR(255),
+    tarifa_base INTEGER NOT NULL,
+    descuento_aplicado INTEGER NOT NULL,
+    subtotal INTEGER NOT NULL,
+    iva INTEGER NOT NULL,
+    total INTEGER NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_comprobante_reserva FOREIGN KEY (reserva_id) REFERENCES reserva (id)
+);
+
+CREATE TABLE comprobante_nombres_participantes (
+    comprobante_id BIGINT NOT NULL,
+    nombres_participantes VARCHAR(255),
+    CONSTRAINT fk_comprobante_nombres_participantes FOREIGN KEY (comprobante_id) REFERENCES comprobante (id)
+);
+
+CREATE TABLE rack_semanal (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    anio INTEGER NOT NULL,
+    numero_semana INTEGER NOT NULL,
+    fecha_inicio DATE,
+    fecha_fin DATE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE rack_semanal_ids_reservas (
+    rack_semanal_id BIGINT NOT NULL,
+    ids_reservas BIGINT,
+    CONSTRAINT fk_rack_semanal_ids_reservas FOREIGN KEY (rack_semanal_id) REFERENCES rack_semanal (id)
+);
+
+CREATE TABLE reportes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    tipo VARCHAR(255),
+    criterio VARCHAR(255),
+    total_ingresos BIGINT,
+    fecha_generacion TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,53 @@
+-- Lo que se agregó sobre el esquema inicial mientras el esquema lo manejaba Hibernate.
+-- IF NOT EXISTS porque una base que corrió esas versiones con ddl-auto=update ya puede tenerlo.
+
+-- Reserva, Comprobante y EnvioComprobante usan secuencias en bloques de 50. En una base con
+-- datos, SecuenciasService las reinicia al arrancar por encima del mayor id.
+CREATE SEQUENCE IF NOT EXISTS reserva_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comprobante_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS envio_comprobante_seq START WITH 1 INCREMENT BY 50;
+
+-- Listas en una sola columna; V3 copia aquí las antiguas tablas de @ElementCollection
+ALTER TABLE reserva ADD COLUMN IF NOT EXISTS ids_clientes_reserva VARCHAR(4000);
+ALTER TABLE reserva ADD COLUMN IF NOT EXISTS ids_karts_reservados VARCHAR(4000);
+ALTER TABLE comprobante ADD COLUMN IF NOT EXISTS nombres_participantes VARCHAR(4000);
+
+-- Outbox de correos de comprobantes
+CREATE TABLE IF NOT EXISTS envio_comprobante (
+    id BIGINT NOT NULL,
+    comprobante_id BIGINT,
+    destinatario VARCHAR(255),
+    estado VARCHAR(255),
+    intentos INTEGER NOT NULL,
+    proximo_intento TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6),
+    ultimo_error VARCHAR(1000),
+    PRIMARY KEY (id)
+);
+
+-- Ingresos preagregados por día, vueltas y rango de personas
+CREATE TABLE IF NOT EXISTS ingreso_diario (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    fecha DATE,
+    numero_vueltas INTEGER NOT NULL,
+    rango_personas VARCHAR(255),
+    total_ingresos BIGINT NOT NULL,
+    cantidad_reservas BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Reservas por cliente titular y mes
+CREATE TABLE IF NOT EXISTS visita_mensual (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    cliente_id BIGINT,
+    anio INTEGER NOT NULL,
+    mes INTEGER NOT NULL,
+    cantidad BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_reserva_fecha_id ON reserva (fecha_hora_reserva, id);
+CREATE INDEX IF NOT EXISTS idx_rack_semanal_anio_semana ON rack_semanal (anio, numero_semana);
+CREATE INDEX IF NOT EXISTS idx_rack_semanal_ids_reservas ON rack_semanal_ids_reservas (ids_reservas);
+CREATE INDEX IF NOT EXISTS idx_ingreso_diario_fecha ON ingreso_diario (fecha);
+CREATE INDEX IF NOT EXISTS idx_visita_mensual_cliente_mes ON visita_mensual (cliente_id, anio, mes);
@@ -0,0 +1,19 @@
+-- Índices para las consultas más frecuentes. IF NOT EXISTS porque una base que corría
+-- con ddl-auto=update puede tener ya alguno.
+
+-- Solapamiento (fecha_hora_reserva < :fin AND fecha_hora_fin > :inicio) y karts ocupados
+-- desde una fecha: el rango por fin y el inicio se resuelven en el mismo índice
+CREATE INDEX IF NOT EXISTS idx_reserva_fin_inicio ON reserva (fecha_hora_fin, fecha_hora_reserva);
+
+-- Reservas de un titular por mes (frecuencia y conciliación de visitas) sin leer la tabla
+CREATE INDEX IF NOT EXISTS idx_reserva_titular_fecha ON reserva (cliente_titular_id, fecha_hora_reserva);
+
+-- Búsqueda de clientes por correo y por rut
+CREATE INDEX IF NOT EXISTS idx_cliente_email ON cliente (email);
+CREATE INDEX IF NOT EXISTS idx_cliente_rut ON cliente (rut);
+
+-- Días especiales por fecha
+CREATE INDEX IF NOT EXISTS idx_tarifa_esp_fecha ON tarifa_esp (fecha_especial);
+
+-- Pendientes del outbox de correos: estado = ? AND proximo_intento <= ?
+CREATE INDEX IF NOT EXISTS idx_envio_comprobante_estado_proximo ON envio_comprobante (estado, proximo_intento);
@@ -0,0 +1,22 @@
+-- Un bucket (día, vueltas, rango de personas) pasa a ser una sola fila. Antes dos reservas
+-- simultáneas podían crear dos filas del mismo bucket: se suman en la de menor id.
+UPDATE ingreso_diario i SET
+    total_ingresos = (SELECT SUM(d.total_ingresos) FROM ingreso_diario d
+                      WHERE d.fecha = i.fecha AND d.numero_vueltas = i.numero_vueltas
+                        AND d.rango_personas = i.rango_personas),
+    cantidad_reservas = (SELECT SUM(d.cantidad_reservas) FROM ingreso_diario d
+                         WHERE d.fecha = i.fecha AND d.numero_vueltas = i.numero_vueltas
+                           AND d.rango_personas = i.rango_personas)
+WHERE i.id = (SELECT MIN(d.id) FROM ingreso_diario d
+              WHERE d.fecha = i.fecha AND d.numero_vueltas = i.numero_vueltas
+                AND d.rango_personas = i.rango_personas);
+
+DELETE FROM ingreso_diario i
+WHERE i.id > (SELECT MIN(d.id) FROM ingreso_diario d
+              WHERE d.fecha = i.fecha AND d.numero_vueltas = i.numero_vueltas
+                AND d.rango_personas = i.rango_personas);
+
+ALTER TABLE ingreso_diario ADD CONSTRAINT uk_ingreso_diario_bucket UNIQUE (fecha, numero_vueltas, rango_personas);
+
+-- El índice de la restricción empieza por fecha y cubre las búsquedas por rango de días
+DROP INDEX IF EXISTS idx_ingreso_diario_fecha;
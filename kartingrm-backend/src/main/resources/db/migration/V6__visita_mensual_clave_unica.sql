@@ -0,0 +1,16 @@
+-- Un contador por cliente y mes. Antes dos reservas simultáneas podían crear dos filas del
+-- mismo mes: se suman en la de menor id.
+UPDATE visita_mensual v SET
+    cantidad = (SELECT SUM(d.cantidad) FROM visita_mensual d
+                WHERE d.cliente_id = v.cliente_id AND d.anio = v.anio AND d.mes = v.mes)
+WHERE v.id = (SELECT MIN(d.id) FROM visita_mensual d
+              WHERE d.cliente_id = v.cliente_id AND d.anio = v.anio AND d.mes = v.mes);
+
+DELETE FROM visita_mensual v
+WHERE v.id > (SELECT MIN(d.id) FROM visita_mensual d
+              WHERE d.cliente_id = v.cliente_id AND d.anio = v.anio AND d.mes = v.mes);
+
+ALTER TABLE visita_mensual ADD CONSTRAINT uk_visita_mensual_cliente_mes UNIQUE (cliente_id, anio, mes);
+
+-- Mismas columnas que el índice de la restricción
+DROP INDEX IF EXISTS idx_visita_mensual_cliente_mes;
@@ -0,0 +1,75 @@
+package com.example.backend.controllers;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Cliente;
+import com.example.backend.entities.Kart;
+import com.example.backend.entities.Tarifa;
+import com.example.backend.services.ClienteService;
+import com.example.backend.services.KartService;
+import com.example.backend.services.TarifaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Servidor real y base propia: este contexto no comparte la H2 de los demás tests
+@SpringBootTest(classes = BackendApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:kartingrm-http;DB_CLOSE_DELAY=-1")
+@AutoConfigureObservability(tracing = false)
+class MetricasPrometheusTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private KartService kartService;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Test
+    void exponeLasFasesDeLaReservaEnFormatoPrometheus() {
+        for (int i = 1; i <= 2; i++) {
+            kartService.guardarKart(new Kart(null, "Sodikart RT8", String.format("K%03d", i)));
+        }
+        tarifaService.guardarTarifa(new Tarifa(null, 10, 10, 30, 15000));
+        Cliente cliente = clienteService.guardarCliente(new Cliente(null, "11.111.111-1", "Ana Pérez",
+                "ana.metricas@kartingrm.cl", "+56900000000", LocalDate.of(1990, 1, 1)));
+
+        Map<String, Object> reserva = Map.of(
+                "fechaHoraReserva", "2031-07-08T15:00:00",
+                "numeroVueltas", 10,
+                "correoTitular", cliente.getEmail(),
+                "correosParticipantes", List.of(cliente.getEmail(), cliente.getEmail()));
+        assertEquals(HttpStatus.OK, rest.postForEntity("/api/reservas/crear", reserva, Map.class).getStatusCode());
+        // La flota de dos karts ya está ocupada a esa hora
+        assertTrue(rest.postForEntity("/api/reservas/crear", reserva, String.class).getStatusCode().isError());
+
+        ResponseEntity<String> scrape = rest.getForEntity("/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, scrape.getStatusCode());
+        String metricas = scrape.getBody();
+        List<String> conteosPorFase = metricas.lines()
+                .filter(l -> l.startsWith("kartingrm_reserva_fase_seconds_count"))
+                .toList();
+        for (String fase : List.of("clientes", "precio", "disponibilidad", "persistencia", "comprobante")) {
+            assertTrue(conteosPorFase.stream().anyMatch(l -> l.contains("fase=\"" + fase + "\"")),
+                    "Falta la fase " + fase);
+        }
+        assertTrue(metricas.contains("kartingrm_reserva_rechazada_total{"));
+        assertTrue(metricas.contains("motivo=\"sin_karts\""));
+        assertTrue(metricas.contains("kartingrm_correo_pendientes"));
+        assertTrue(metricas.contains("kartingrm_comprobantes_exportacion_cola"));
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.backend.controllers;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Cliente;
+import com.example.backend.entities.Comprobante;
+import com.example.backend.entities.Kart;
+import com.example.backend.entities.Reserva;
+import com.example.backend.entities.Tarifa;
+import com.example.backend.repositories.ComprobanteRepository;
+import com.example.backend.repositories.ReservaRepository;
+import com.example.backend.services.ClienteService;
+import com.example.backend.services.KartService;
+import com.example.backend.services.TarifaService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.IsoFields;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Simulación de carga contra la aplicación completa sobre H2: reservas, consultas del rack
+ * y reportes concurrentes por HTTP. Informa rendimiento y latencias p50/p99 por tipo, y
+ * verifica que ningún kart quede reservado dos veces y que cada comprobante cuadre con
+ * el precio final de su reserva.
+ *
+ * No corre con el build normal: mvn -Pcarga test [-Dcarga.hilos=16 -Dcarga.operaciones=2000]
+ */
+@Tag("carga")
+@SpringBootTest(classes = BackendApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:kartingrm-carga;DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false", "server.error.include-message=always"})
+class SimulacionCargaTest {
+
+    private static final int HILOS = Integer.getInteger("carga.hilos", 8);
+    private static final int OPERACIONES = Integer.getInteger("carga.operaciones", 600);
+    private static final int CLIENTES = 200;
+    private static final int KARTS = 15;
+    private static final int[] VUELTAS = {10, 15, 20};
+
+    // Dos semanas de martes a domingo, de 14:00 a 21:45 en franjas de 15 minutos
+    private static final LocalDate PRIMER_DIA = LocalDate.of(2032, 3, 2);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private KartService kartService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ComprobanteRepository comprobanteRepository;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    enum Tipo { RESERVA, RACK, REPORTE }
+
+    record Medicion(Tipo tipo, long nanos, int status) {
+    }
+
+    @Test
+    void simularCarga() throws Exception {
+        List<String> correos = sembrar();
+
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Medicion> mediciones = Collections.synchronizedList(new ArrayList<>(OPERACIONES));
+        AtomicInteger rechazosPorKarts = new AtomicInteger();
+        List<Callable<Void>> tareas = new ArrayList<>();
+        for (int n = 0; n < OPERACIONES; n++) {
+            long semilla = n;
+            tareas.add(() -> {
+                Random random = new Random(semilla);
+                int dado = random.nextInt(10);
+                Tipo tipo = dado < 7 ? Tipo.RESERVA : dado < 9 ? Tipo.RACK : Tipo.REPORTE;
+                long t0 = System.nanoTime();
+                ResponseEntity<String> respuesta = switch (tipo) {
+                    case RESERVA -> rest.postForEntity("/api/reservas/crear", reservaAlAzar(random, correos), String.class);
+                    case RACK -> rackAlAzar(random);
+                    case REPORTE -> rest.getForEntity("/api/reportes/vueltas?inicio={i}&fin={f}", String.class,
+                            PRIMER_DIA.atStartOfDay(), PRIMER_DIA.plusDays(14).atStartOfDay());
+                };
+                mediciones.add(new Medicion(tipo, System.nanoTime() - t0, respuesta.getStatusCode().value()));
+                if (tipo == Tipo.RESERVA && respuesta.getStatusCode().isError()) {
+                    assertTrue(String.valueOf(respuesta.getBody()).contains("karts"),
+                            "Reserva rechazada por otro motivo: " + respuesta.getBody());
+                    rechazosPorKarts.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        long inicio = System.nanoTime();
+        for (Future<Void> f : pool.invokeAll(tareas)) {
+            f.get();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        pool.shutdown();
+
+        informar(mediciones, segundos, rechazosPorKarts.get());
+        verificarSinKartsRepetidos();
+        verificarComprobantes();
+        assertTrue(mediciones.stream().filter(m -> m.tipo() != Tipo.RESERVA).allMatch(m -> m.status() < 400));
+    }
+
+    private List<String> sembrar() {
+        for (int i = 1; i <= KARTS; i++) {
+            kartService.guardarKart(new Kart(null, "Sodikart RT8", String.format("K%03d", i)));
+        }
+        tarifaService.guardarTarifa(new Tarifa(null, 10, 10, 30, 15000));
+        tarifaService.guardarTarifa(new Tarifa(null, 15, 15, 35, 20000));
+        tarifaService.guardarTarifa(new Tarifa(null, 20, 20, 40, 25000));
+
+        List<String> correos = new ArrayList<>();
+        for (int i = 0; i < CLIENTES; i++) {
+            String correo = "cliente" + i + "@carga.kartingrm.cl";
+            clienteService.guardarCliente(new Cliente(null, "rut-" + i, "Cliente " + i, correo,
+                    "+569" + (10000000 + i), LocalDate.of(1980 + i % 30, 1 + i % 12, 1 + i % 28)));
+            correos.add(correo);
+        }
+        return correos;
+    }
+
+    private Map<String, Object> reservaAlAzar(Random random, List<String> correos) {
+        LocalDate dia = PRIMER_DIA.plusDays(random.nextInt(14));
+        LocalDateTime hora = dia.atTime(14, 0).plusMinutes(15L * random.nextInt(32));
+        int personas = 1 + random.nextInt(6);
+        List<String> participantes = new ArrayList<>();
+        String titular = correos.get(random.nextInt(correos.size()));
+        participantes.add(titular);
+        while (participantes.size() < personas) {
+            participantes.add(correos.get(random.nextInt(correos.size())));
+        }
+        return Map.of(
+                "fechaHoraReserva", hora.toString(),
+                "numeroVueltas", VUELTAS[random.nextInt(VUELTAS.length)],
+                "correoTitular", titular,
+                "correosParticipantes", participantes);
+    }
+
+    private ResponseEntity<String> rackAlAzar(Random random) {
+        LocalDate dia = PRIMER_DIA.plusDays(random.nextInt(14));
+        return rest.getForEntity("/api/rack-semanal?anio={a}&semana={s}", String.class,
+                dia.get(IsoFields.WEEK_BASED_YEAR), dia.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+
+    private void informar(List<Medicion> mediciones, double segundos, int rechazosPorKarts) {
+        System.out.printf("%nSimulación de carga: %d operaciones, %d hilos, %.1f s, %.1f op/s%n",
+                mediciones.size(), HILOS, segundos, mediciones.size() / segundos);
+        for (Tipo tipo : Tipo.values()) {
+            long[] nanos = mediciones.stream().filter(m -> m.tipo() == tipo).mapToLong(Medicion::nanos).sorted().toArray();
+            if (nanos.length == 0) {
+                continue;
+            }
+            System.out.printf("  %-8s n=%-5d p50=%7.1f ms  p99=%7.1f ms  max=%7.1f ms%n", tipo, nanos.length,
+                    percentil(nanos, 50) / 1e6, percentil(nanos, 99) / 1e6, nanos[nanos.length - 1] / 1e6);
+        }
+        System.out.printf("  Reservas rechazadas por falta de karts: %d%n", rechazosPorKarts);
+    }
+
+    private long percentil(long[] ordenados, int p) {
+        int i = (int) Math.ceil(p / 100.0 * ordenados.length) - 1;
+        return ordenados[Math.max(0, Math.min(i, ordenados.length - 1))];
+    }
+
+    private void verificarSinKartsRepetidos() {
+        Map<Long, List<Reserva>> porKart = new HashMap<>();
+        for (Reserva r : reservaRepository.findAll()) {
+            r.getIdsKartsReservados().forEach(k -> porKart.computeIfAbsent(k, x -> new ArrayList<>()).add(r));
+        }
+        porKart.forEach((kart, reservas) -> {
+            reservas.sort(Comparator.comparing(Reserva::getFechaHoraReserva));
+            for (int i = 1; i < reservas.size(); i++) {
+                assertFalse(reservas.get(i).getFechaHoraReserva().isBefore(reservas.get(i - 1).getFechaHoraFin()),
+                        "Kart " + kart + " en las reservas " + reservas.get(i - 1).getId() + " y " + reservas.get(i).getId());
+            }
+        });
+    }
+
+    private void verificarComprobantes() {
+        List<Reserva> reservas = reservaRepository.findAll();
+        Map<Long, Comprobante> porReserva = new HashMap<>();
+        comprobanteRepository.findAll().forEach(c -> porReserva.put(c.getReserva().getId(), c));
+        assertEquals(reservas.size(), porReserva.size(), "Cada reserva debe tener su comprobante");
+        for (Reserva r : reservas) {
+            Comprobante c = porReserva.get(r.getId());
+            assertEquals(r.getPrecioFinal(), c.getTotal(), "Comprobante de la reserva " + r.getId());
+            assertEquals(c.getSubtotal() + c.getIva(), c.getTotal());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.backend.repositories;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Comprobante;
+import com.example.backend.entities.Reserva;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Una base creada por ddl-auto=update antes de Flyway: tiene el esquema de V1, datos en las
+ * antiguas tablas de colecciones y no tiene historial. Al arrancar se marca en V1, corren
+ * las migraciones siguientes y Hibernate valida el resultado.
+ */
+@SpringBootTest(classes = BackendApplication.class,
+        properties = {"spring.datasource.url=" + ActualizacionEsquemaTest.URL,
+                "spring.flyway.baseline-on-migrate=true",
+                "spring.flyway.baseline-version=1"})
+class ActualizacionEsquemaTest {
+
+    static final String URL = "jdbc:h2:mem:kartingrm-v1;DB_CLOSE_DELAY=-1";
+
+    static {
+        // Tiene que estar listo antes de que arranque el contexto
+        Flyway.configure().dataSource(URL, "sa", "").target("1").load().migrate();
+        try (Connection con = DriverManager.getConnection(URL, "sa", "");
+             Statement st = con.createStatement()) {
+            st.execute("DROP TABLE \"flyway_schema_history\"");
+            st.execute("INSERT INTO reserva (id, cliente_titular_id, fecha_hora_reserva, fecha_hora_fin, cantidad_personas, " +
+                    "numero_vueltas, precio_base, precio_final, estado) VALUES " +
+                    "(7, 1, TIMESTAMP '2023-03-10 15:00:00', TIMESTAMP '2023-03-10 15:30:00', 2, 10, 15000, 35700, 'CONFIRMADA')");
+            st.execute("INSERT INTO reserva_ids_clientes_reserva VALUES (7, 1), (7, 2)");
+            st.execute("INSERT INTO reserva_ids_karts_reservados VALUES (7, 4), (7, 9)");
+            st.execute("INSERT INTO comprobante (id, reserva_id, nombre_titular, tarifa_base, descuento_aplicado, " +
+                    "subtotal, iva, total) VALUES (3, 7, 'Ana', 30000, 0, 30000, 5700, 35700)");
+            st.execute("INSERT INTO comprobante_nombres_participantes VALUES (3, 'Ana'), (3, 'Luis, hijo')");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ComprobanteRepository comprobanteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void actualizaUnaBaseAnteriorAFlyway() {
+        List<String> versiones = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"",
+                String.class);
+        assertEquals("1", versiones.get(0));
+        assertTrue(versiones.contains("3"));
+
+        Reserva antigua = reservaRepository.findById(7L).orElseThrow();
+        assertEquals(List.of(1L, 2L), antigua.getIdsClientesReserva());
+        assertEquals(List.of(4L, 9L), antigua.getIdsKartsReservados());
+
+        Comprobante comprobante = comprobanteRepository.findById(3L).orElseThrow();
+        assertEquals(List.of("Ana", "Luis, hijo"), comprobante.getNombresParticipantes());
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES " +
+                "WHERE TABLE_NAME IN ('RESERVA_IDS_CLIENTES_RESERVA', 'RESERVA_IDS_KARTS_RESERVADOS', " +
+                "'COMPROBANTE_NOMBRES_PARTICIPANTES')", Integer.class));
+
+        // Los ingresos diarios se llenaron al arrancar desde las reservas existentes
+        assertEquals(35700L, jdbcTemplate.queryForObject(
+                "SELECT SUM(total_ingresos) FROM ingreso_diario WHERE fecha = DATE '2023-03-10'", Long.class));
+
+        // La secuencia nueva no choca con los ids que venían de IDENTITY
+        LocalDateTime inicio = LocalDateTime.of(2023, 3, 11, 15, 0);
+        Reserva nueva = reservaRepository.save(new Reserva(null, 1L, inicio, inicio.plusMinutes(30), 1, 10,
+                15000, 17850, "CONFIRMADA", List.of(1L), List.of(4L), null, null));
+        assertTrue(nueva.getId() > 7L);
+    }
+}
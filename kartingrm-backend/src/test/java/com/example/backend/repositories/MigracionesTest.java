@@ -0,0 +1,79 @@
+package com.example.backend.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El esquema de los tests lo crean las migraciones de Flyway; aquí se revisa que estén
+ * todas aplicadas y que H2 use los índices de V4 en las consultas frecuentes.
+ */
+@DataJpaTest
+class MigracionesTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void poblar() {
+        // Filas suficientes para que el optimizador prefiera el índice a recorrer la tabla
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 14, 0);
+        List<Object[]> reservas = new ArrayList<>();
+        List<Object[]> clientes = new ArrayList<>();
+        List<Object[]> fechas = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime inicio = base.plusHours(i);
+            reservas.add(new Object[]{800_000L + i, (long) (i % 50), inicio, inicio.plusMinutes(30)});
+            clientes.add(new Object[]{"migracion" + i + "@test.cl", "rut-migracion-" + i});
+            fechas.add(new Object[]{LocalDate.of(2025, 1, 1).plusDays(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO reserva (id, cliente_titular_id, fecha_hora_reserva, fecha_hora_fin, " +
+                "cantidad_personas, numero_vueltas, precio_base, precio_final, estado) " +
+                "VALUES (?, ?, ?, ?, 2, 10, 0, 0, 'CONFIRMADA')", reservas);
+        jdbcTemplate.batchUpdate("INSERT INTO cliente (email, rut) VALUES (?, ?)", clientes);
+        jdbcTemplate.batchUpdate("INSERT INTO tarifa_esp (fecha_especial) VALUES (?)", fechas);
+    }
+
+    @Test
+    void aplicaTodasLasMigraciones() {
+        List<String> versiones = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"",
+                String.class);
+        assertEquals(List.of("1", "2", "3", "4", "5", "6"), versiones);
+    }
+
+    @Test
+    void lasConsultasFrecuentesUsanLosIndices() {
+        assertUsaIndice("idx_reserva_fin_inicio",
+                "SELECT id FROM reserva WHERE fecha_hora_reserva < TIMESTAMP '2025-01-05 18:00:00' " +
+                        "AND fecha_hora_fin > TIMESTAMP '2025-01-05 16:00:00'");
+        assertUsaIndice("idx_reserva_fin_inicio",
+                "SELECT id, fecha_hora_reserva, fecha_hora_fin, ids_karts_reservados FROM reserva " +
+                        "WHERE fecha_hora_fin > TIMESTAMP '2025-01-20 00:00:00'");
+        assertUsaIndice("idx_reserva_titular_fecha",
+                "SELECT COUNT(*) FROM reserva WHERE cliente_titular_id = 7 " +
+                        "AND fecha_hora_reserva >= TIMESTAMP '2025-01-01 00:00:00' " +
+                        "AND fecha_hora_reserva < TIMESTAMP '2025-02-01 00:00:00'");
+        assertUsaIndice("idx_cliente_email", "SELECT id FROM cliente WHERE email = 'migracion7@test.cl'");
+        assertUsaIndice("idx_cliente_rut", "SELECT id FROM cliente WHERE rut = 'rut-migracion-7'");
+        assertUsaIndice("idx_tarifa_esp_fecha", "SELECT id FROM tarifa_esp WHERE fecha_especial = DATE '2025-03-01'");
+        assertUsaIndice("idx_envio_comprobante_estado_proximo",
+                "SELECT id FROM envio_comprobante WHERE estado = 'PENDIENTE' " +
+                        "AND proximo_intento <= TIMESTAMP '2025-01-01 00:00:00'");
+    }
+
+    private void assertUsaIndice(String indice, String consulta) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + consulta, String.class);
+        assertTrue(plan.toLowerCase().contains(indice), "Se esperaba " + indice + " en el plan:\n" + plan);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.backend.repositories;
+
+import com.example.backend.entities.Reserva;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class ReservaRepositoryTest {
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 5, 10, 15, 0);
+
+    @Test
+    void sumaIngresosAgrupadosEnLaBaseDeDatos() {
+        guardar(base, 10, 2, 30000);
+        guardar(base.plusHours(1), 10, 4, 50000);
+        guardar(base.plusHours(2), 15, 4, 70000);
+        guardar(base.plusMonths(1), 15, 4, 99999);
+
+        Map<Integer, Long> porVueltas = agrupar(
+                reservaRepository.sumarIngresosPorVueltas(base.minusDays(1), base.plusDays(1)));
+        assertEquals(Map.of(10, 80000L, 15, 70000L), porVueltas);
+
+        Map<Integer, Long> porPersonas = agrupar(
+                reservaRepository.sumarIngresosPorPersonas(base.minusDays(1), base.plusDays(1)));
+        assertEquals(Map.of(2, 30000L, 4, 120000L), porPersonas);
+    }
+
+    @Test
+    void paginaPorFechaEIdSinRepetirNiSaltarReservas() {
+        LocalDateTime dia = LocalDateTime.of(2025, 7, 2, 15, 0);
+        // Varias reservas a la misma hora para que el id tenga que desempatar
+        for (int i = 0; i < 7; i++) {
+            guardar(dia.plusMinutes(30L * (i / 3)), 10, 2, 1000 + i);
+        }
+
+        List<Reserva> todas = new ArrayList<>();
+        LocalDateTime despuesDeFecha = dia;
+        Long despuesDeId = 0L;
+        List<Reserva> pagina;
+        do {
+            pagina = reservaRepository.findPaginaEntreFechas(dia, dia.plusHours(2), despuesDeFecha, despuesDeId, Limit.of(2));
+            todas.addAll(pagina);
+            if (!pagina.isEmpty()) {
+                Reserva ultima = pagina.get(pagina.size() - 1);
+                despuesDeFecha = ultima.getFechaHoraReserva();
+                despuesDeId = ultima.getId();
+            }
+        } while (pagina.size() == 2);
+
+        assertEquals(7, todas.size());
+        assertEquals(7, todas.stream().map(Reserva::getId).distinct().count());
+        for (int i = 1; i < todas.size(); i++) {
+            assertFalse(todas.get(i).getFechaHoraReserva().isBefore(todas.get(i - 1).getFechaHoraReserva()));
+        }
+    }
+
+    @Test
+    void leeYGuardaLasListasSinConsultasExtra() {
+        Statistics estadisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        List<Long> quince = LongStream.rangeClosed(1, 15).boxed().toList();
+        LocalDateTime dia = LocalDateTime.of(2025, 8, 5, 15, 0);
+
+        // Con @ElementCollection eran 1 + 15 + 15 inserts por reserva y 1 + 2N selects al leer N reservas
+        estadisticas.clear();
+        for (int i = 0; i < 5; i++) {
+            reservaRepository.save(new Reserva(null, 1L, dia.plusHours(i), dia.plusHours(i).plusMinutes(30), 15, 10,
+                    15000, 100000, "CONFIRMADA", quince, quince, null, null));
+        }
+        entityManager.flush();
+        assertEquals(5, estadisticas.getEntityInsertCount());
+        // Un insert agrupado por JDBC y a lo más una lectura de la secuencia
+        assertTrue(estadisticas.getPrepareStatementCount() <= 2);
+
+        entityManager.clear();
+        estadisticas.clear();
+        List<Reserva> leidas = reservaRepository.findByFechaHoraReservaBetween(dia, dia.plusHours(5));
+        int karts = leidas.stream().mapToInt(r -> r.getIdsKartsReservados().size() + r.getIdsClientesReserva().size()).sum();
+        assertEquals(5 * 30, karts);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        estadisticas.setStatisticsEnabled(false);
+    }
+
+    private void guardar(LocalDateTime inicio, int vueltas, int personas, int precioFinal) {
+        reservaRepository.save(new Reserva(null, 1L, inicio, inicio.plusMinutes(30), personas, vueltas,
+                15000, precioFinal, "CONFIRMADA", List.of(1L), List.of(1L), null, null));
+    }
+
+    private Map<Integer, Long> agrupar(List<IngresoAgrupado> filas) {
+        return filas.stream().collect(Collectors.toMap(IngresoAgrupado::getClave, IngresoAgrupado::getTotal));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheComprobantesTest {
+
+    @Test
+    void expulsaLosMenosUsadosAlPasarseDelLimiteDeBytes() {
+        CacheComprobantes cache = new CacheComprobantes(100);
+        CacheComprobantes.Clave a = new CacheComprobantes.Clave(1L, ComprobanteService.PDF);
+        CacheComprobantes.Clave b = new CacheComprobantes.Clave(2L, ComprobanteService.PDF);
+        CacheComprobantes.Clave c = new CacheComprobantes.Clave(3L, ComprobanteService.PDF);
+
+        cache.guardar(a, 10L, new byte[40]);
+        cache.guardar(b, 20L, new byte[40]);
+        assertNotNull(cache.obtener(a));
+        cache.guardar(c, 30L, new byte[40]);
+
+        // b era el menos usado
+        assertNull(cache.obtener(b));
+        assertNotNull(cache.obtener(a));
+        assertNotNull(cache.obtener(c));
+        assertEquals(80L, cache.estadisticas().get("bytes"));
+
+        // Un contenido más grande que la cache completa no se guarda
+        cache.guardar(b, 20L, new byte[101]);
+        assertNull(cache.obtener(b));
+    }
+
+    @Test
+    void olvidaLosFormatosDeUnaReservaEliminada() {
+        CacheComprobantes cache = new CacheComprobantes(1000);
+        cache.guardar(new CacheComprobantes.Clave(1L, ComprobanteService.PDF), 10L, new byte[5]);
+        cache.guardar(new CacheComprobantes.Clave(1L, ComprobanteService.EXCEL), 10L, new byte[5]);
+        cache.guardar(new CacheComprobantes.Clave(2L, ComprobanteService.PDF), 20L, new byte[5]);
+
+        cache.quitarReserva(10L);
+
+        assertEquals(1, cache.estadisticas().get("entradas"));
+        assertEquals(5L, cache.estadisticas().get("bytes"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.backend.services;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Cliente;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = BackendApplication.class)
+class ClienteServiceTest {
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Test
+    void elCacheEntregaCopiasYSeInvalidaAlGuardar() {
+        String correo = "copias.cache@kartingrm.cl";
+        Cliente guardado = clienteService.guardarCliente(new Cliente(null, "22.222.222-2", "Berta",
+                correo, "+56900000000", LocalDate.of(1985, 5, 5)));
+
+        Cliente primero = clienteService.buscarPorEmail(correo);
+        Cliente segundo = clienteService.buscarPorEmails(List.of(correo)).get(correo);
+        assertNotSame(primero, segundo);
+
+        // Modificar lo recibido no cambia lo que ven los demás
+        primero.setNombre("Modificado sin guardar");
+        assertEquals("Berta", clienteService.buscarPorEmail(correo).getNombre());
+
+        guardado.setNombre("Berta Soto");
+        clienteService.guardarCliente(guardado);
+        assertEquals("Berta Soto", clienteService.buscarPorEmail(correo).getNombre());
+        assertEquals("Berta Soto", clienteService.buscarPorEmails(List.of(correo)).get(correo).getNombre());
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Kart;
+import com.example.backend.repositories.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DisponibilidadKartsServiceTest {
+
+    private static final int KARTS = 15;
+
+    private DisponibilidadKartsService service;
+
+    private final LocalDateTime base = LocalDate.now().plusDays(1).atTime(10, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReservaRepository reservaRepository = mock(ReservaRepository.class);
+        when(reservaRepository.findKartsReservadosDesde(any())).thenReturn(List.of());
+
+        KartService kartService = mock(KartService.class);
+        when(kartService.obtenerTodos()).thenReturn(LongStream.rangeClosed(1, KARTS)
+                .mapToObj(id -> new Kart(id, "Sodikart RT8", "K" + id))
+                .toList());
+
+        service = new DisponibilidadKartsService();
+        ReflectionTestUtils.setField(service, "reservaRepository", reservaRepository);
+        ReflectionTestUtils.setField(service, "kartService", kartService);
+        service.cargar();
+    }
+
+    @Test
+    void reclamoOcupaLosKartsHastaQueSeLibera() {
+        DisponibilidadKartsService.Intervalo reclamo = service.reclamarKarts(base, base.plusMinutes(30), KARTS);
+        assertNotNull(reclamo);
+        assertNull(service.reclamarKarts(base.plusMinutes(20), base.plusMinutes(50), 1));
+
+        // Un intervalo que empieza justo al terminar el anterior no se solapa
+        assertEquals(KARTS, service.buscarKartsLibres(base.plusMinutes(30), base.plusMinutes(60), KARTS).size());
+
+        service.confirmar(reclamo, 1L);
+        service.liberar(1L);
+        assertEquals(KARTS, service.buscarKartsLibres(base, base.plusMinutes(30), KARTS).size());
+    }
+
+    @Test
+    void reservasConcurrentesNoRepitenKarts() throws Exception {
+        List<DisponibilidadKartsService.Intervalo> confirmados = Collections.synchronizedList(new ArrayList<>());
+        ejecutarReservas(16, 800, confirmados);
+
+        Map<Long, List<DisponibilidadKartsService.Intervalo>> porKart = new HashMap<>();
+        for (DisponibilidadKartsService.Intervalo i : confirmados) {
+            i.idsKarts().forEach(k -> porKart.computeIfAbsent(k, x -> new ArrayList<>()).add(i));
+        }
+        porKart.forEach((kart, intervalos) -> {
+            intervalos.sort(Comparator.comparing(DisponibilidadKartsService.Intervalo::inicio));
+            for (int j = 1; j < intervalos.size(); j++) {
+                assertFalse(intervalos.get(j).inicio().isBefore(intervalos.get(j - 1).fin()),
+                        "Kart " + kart + " asignado dos veces en el mismo horario");
+            }
+        });
+        assertFalse(confirmados.isEmpty());
+    }
+
+    @Test
+    void unaVentanaNoEsperaElCerrojoDeOtra() throws Exception {
+        LocalDateTime ventanaA = base;
+        LocalDateTime ventanaB = base.plusHours(2);
+        ReentrantLock[] cerrojos = (ReentrantLock[]) ReflectionTestUtils.getField(service, "cerrojos");
+        int[] deA = ReflectionTestUtils.invokeMethod(service, "cerrojosDe", ventanaA, ventanaA.plusMinutes(30));
+        int[] deB = ReflectionTestUtils.invokeMethod(service, "cerrojosDe", ventanaB, ventanaB.plusMinutes(30));
+        assertTrue(Arrays.stream(deA).noneMatch(i -> Arrays.stream(deB).anyMatch(j -> j == i)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        for (int i : deA) {
+            cerrojos[i].lock();
+        }
+        Future<DisponibilidadKartsService.Intervalo> enA;
+        try {
+            // Con la ventana A tomada, una reserva en B termina sin esperar
+            assertNotNull(pool.submit(() -> service.reclamarKarts(ventanaB, ventanaB.plusMinutes(30), 2))
+                    .get(5, TimeUnit.SECONDS));
+
+            // Y una en A queda esperando su cerrojo
+            enA = pool.submit(() -> service.reclamarKarts(ventanaA, ventanaA.plusMinutes(30), 2));
+            while (!cerrojos[deA[0]].hasQueuedThreads()) {
+                Thread.onSpinWait();
+            }
+            assertFalse(enA.isDone());
+        } finally {
+            for (int i : deA) {
+                cerrojos[i].unlock();
+            }
+        }
+        assertNotNull(enA.get(5, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    void podarEliminaLosIntervalosQueYaTerminaron() {
+        LocalDateTime haceTresDias = LocalDate.now().minusDays(3).atTime(15, 0);
+        ReflectionTestUtils.setField(service, "horizonte", haceTresDias.minusDays(1));
+        service.confirmar(service.reclamarKarts(haceTresDias, haceTresDias.plusMinutes(30), 2), 1L);
+        service.confirmar(service.reclamarKarts(base, base.plusMinutes(30), 2), 2L);
+        assertEquals(2, service.intervalosEnMemoria());
+
+        assertEquals(1, service.podarPasado());
+        assertEquals(1, service.intervalosEnMemoria());
+        assertEquals(0, service.podarPasado());
+        assertEquals(KARTS - 2, service.buscarKartsLibres(base, base.plusMinutes(30), KARTS).size());
+    }
+
+    @Test
+    void horariosLibresExcluyenLosIniciosQueChocan() {
+        service.confirmar(service.reclamarKarts(base.plusHours(5), base.plusHours(5).plusMinutes(30), KARTS - 2), 1L);
+
+        SortedMap<LocalDateTime, Integer> libres =
+                service.buscarHorariosLibres(base, base.plusHours(12), 30, 3, 15);
+
+        // Con 13 karts ocupados de 15:00 a 15:30 no cabe un grupo de 3 que empiece entre 14:45 y 15:15
+        assertTrue(libres.containsKey(base.plusHours(4).plusMinutes(30)));
+        assertFalse(libres.containsKey(base.plusHours(4).plusMinutes(45)));
+        assertFalse(libres.containsKey(base.plusHours(5).plusMinutes(15)));
+        assertEquals(KARTS, libres.get(base.plusHours(5).plusMinutes(30)));
+        // La última sesión debe terminar al cierre
+        assertEquals(base.plusHours(11).plusMinutes(30), libres.lastKey());
+        assertEquals(47 - 3, libres.size());
+    }
+
+    @Test
+    void horariosLibresEnUnDiaLleno() {
+        // Día completo con grupos de 1 a 3 karts cada 5 minutos hasta agotar la flota
+        long id = 1;
+        for (int minuto = 0; minuto < 12 * 60 - 30; minuto += 5) {
+            LocalDateTime inicio = base.plusMinutes(minuto);
+            DisponibilidadKartsService.Intervalo reclamo;
+            while ((reclamo = service.reclamarKarts(inicio, inicio.plusMinutes(30), 1 + (int) (id % 3))) != null) {
+                service.confirmar(reclamo, id++);
+            }
+        }
+
+        SortedMap<LocalDateTime, Integer> libres = service.buscarHorariosLibres(base, base.plusHours(12), 30, 1, 1);
+
+        // Coincide minuto a minuto con la búsqueda kart por kart
+        for (int minuto = 0; minuto <= 12 * 60 - 30; minuto++) {
+            LocalDateTime inicio = base.plusMinutes(minuto);
+            assertEquals(service.buscarKartsLibres(inicio, inicio.plusMinutes(30), KARTS).size(),
+                    libres.getOrDefault(inicio, 0), "Inicio " + inicio);
+        }
+        assertFalse(libres.containsKey(base.plusHours(1)));
+    }
+
+    private void ejecutarReservas(int hilos, int reservas,
+                                  List<DisponibilidadKartsService.Intervalo> confirmados) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        List<Callable<Void>> tareas = new ArrayList<>();
+        for (int n = 0; n < reservas; n++) {
+            long id = n + 1;
+            // Franjas de 15 minutos repartidas en una semana, con varios grupos por franja
+            LocalDateTime inicio = base.plusMinutes(15L * (n % 672));
+            int personas = 1 + n % 6;
+            tareas.add(() -> {
+                DisponibilidadKartsService.Intervalo reclamo =
+                        service.reclamarKarts(inicio, inicio.plusMinutes(30), personas);
+                if (reclamo != null) {
+                    service.confirmar(reclamo, id);
+                    confirmados.add(reclamo);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f : pool.invokeAll(tareas)) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
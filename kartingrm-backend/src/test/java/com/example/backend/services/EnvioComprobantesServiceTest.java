@@ -0,0 +1,152 @@
+package com.example.backend.services;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Comprobante;
+import com.example.backend.entities.EnvioComprobante;
+import com.example.backend.entities.Reserva;
+import com.example.backend.repositories.ComprobanteRepository;
+import com.example.backend.repositories.EnvioComprobanteRepository;
+import com.example.backend.repositories.ReservaRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(classes = BackendApplication.class)
+class EnvioComprobantesServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private EnvioComprobantesService envioComprobantesService;
+
+    @Autowired
+    private EnvioComprobanteRepository envioRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ComprobanteRepository comprobanteRepository;
+
+    @Test
+    void enviaElComprobanteACadaDestinatario() throws Exception {
+        LocalDateTime inicio = LocalDateTime.now().plusDays(3).withHour(15).withMinute(0);
+        Reserva reserva = new Reserva(null, 1L, inicio, inicio.plusMinutes(30), 2, 10,
+                15000, 35700, "CONFIRMADA", List.of(1L, 2L), List.of(1L, 2L), null, null);
+        reserva = reservaRepository.save(reserva);
+
+        Comprobante comprobante = comprobanteRepository.save(new Comprobante(null, reserva, "Ana Pérez",
+                List.of("Ana Pérez", "Luis Soto"), 30000, 0, 30000, 5700, 35700));
+
+        envioComprobantesService.encolar(comprobante, List.of("ana@kartingrm.cl", "luis@kartingrm.cl"));
+        envioComprobantesService.procesarPendientes();
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 2));
+        MimeMessage[] recibidos = greenMail.getReceivedMessages();
+        assertEquals(2, recibidos.length);
+        assertEquals("Tu comprobante de reserva - KartingRM", recibidos[0].getSubject());
+
+        // El estado se guarda justo después de enviar
+        long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        List<EnvioComprobante> envios;
+        do {
+            envios = envioRepository.findAll().stream()
+                    .filter(e -> e.getComprobanteId().equals(comprobante.getId()))
+                    .toList();
+            Thread.sleep(50);
+        } while (envios.stream().anyMatch(e -> !EnvioComprobantesService.ENVIADO.equals(e.getEstado()))
+                && System.nanoTime() < limite);
+        assertTrue(envios.stream().allMatch(e -> EnvioComprobantesService.ENVIADO.equals(e.getEstado())));
+    }
+
+    @Test
+    void cortocircuitoSeAbreYDejaPasarUnIntentoDePrueba() throws Exception {
+        CortocircuitoCorreo cortocircuito = new CortocircuitoCorreo(2, Duration.ofMillis(50));
+        cortocircuito.registrarFallo();
+        assertTrue(cortocircuito.permiteIntento());
+        cortocircuito.registrarFallo();
+        assertTrue(cortocircuito.estaAbierto());
+        assertFalse(cortocircuito.permiteIntento());
+
+        Thread.sleep(60);
+        assertTrue(cortocircuito.permiteIntento());
+        assertFalse(cortocircuito.permiteIntento());
+        cortocircuito.registrarExito();
+        assertEquals(CortocircuitoCorreo.Estado.CERRADO, cortocircuito.getEstado());
+    }
+
+    @Test
+    void unComprobanteQueYaNoExisteNoUsaElIntentoDePrueba() throws Exception {
+        ComprobanteRepository comprobantes = mock(ComprobanteRepository.class);
+        when(comprobantes.findById(any())).thenReturn(Optional.empty());
+        ComprobanteService correo = mock(ComprobanteService.class);
+        CortocircuitoCorreo cortocircuito = new CortocircuitoCorreo(1, Duration.ofMillis(1));
+        EnvioComprobantesService servicio = servicioAislado(comprobantes, correo, cortocircuito);
+
+        cortocircuito.registrarFallo();
+        Thread.sleep(5);
+        EnvioComprobante envio = envioPendiente();
+        servicio.enviar(envio);
+
+        assertEquals(EnvioComprobantesService.FALLIDO, envio.getEstado());
+        verify(correo, never()).enviarCorreo(any(), any(), any());
+        // El intento de prueba sigue disponible para el servidor de correo
+        assertEquals(CortocircuitoCorreo.Estado.ABIERTO, cortocircuito.getEstado());
+        assertTrue(cortocircuito.permiteIntento());
+    }
+
+    @Test
+    void unErrorAlGenerarElPdfNoAbreElCortocircuito() throws Exception {
+        ComprobanteRepository comprobantes = mock(ComprobanteRepository.class);
+        when(comprobantes.findById(any())).thenReturn(Optional.of(new Comprobante()));
+        ComprobanteService correo = mock(ComprobanteService.class);
+        when(correo.obtenerPdf(any())).thenThrow(new IllegalStateException("Plantilla rota"));
+        CortocircuitoCorreo cortocircuito = new CortocircuitoCorreo(1, Duration.ofMinutes(1));
+        EnvioComprobantesService servicio = servicioAislado(comprobantes, correo, cortocircuito);
+
+        EnvioComprobante envio = envioPendiente();
+        servicio.enviar(envio);
+
+        verify(correo, never()).enviarCorreo(any(), any(), any());
+        assertEquals(CortocircuitoCorreo.Estado.CERRADO, cortocircuito.getEstado());
+        // Se reintenta más tarde como cualquier otro error
+        assertEquals(EnvioComprobantesService.PENDIENTE, envio.getEstado());
+        assertEquals(1, envio.getIntentos());
+        assertEquals("Plantilla rota", envio.getUltimoError());
+    }
+
+    // Sin contexto de Spring: el envío programado no corre en paralelo con el test
+    private EnvioComprobantesService servicioAislado(ComprobanteRepository comprobantes, ComprobanteService correo,
+                                                     CortocircuitoCorreo cortocircuito) {
+        EnvioComprobantesService servicio = new EnvioComprobantesService();
+        ReflectionTestUtils.setField(servicio, "envioRepository", mock(EnvioComprobanteRepository.class));
+        ReflectionTestUtils.setField(servicio, "comprobanteRepository", comprobantes);
+        ReflectionTestUtils.setField(servicio, "comprobanteService", correo);
+        ReflectionTestUtils.setField(servicio, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(servicio, "maxIntentos", 5);
+        ReflectionTestUtils.setField(servicio, "esperaInicialSegundos", 30L);
+        ReflectionTestUtils.setField(servicio, "cortocircuito", cortocircuito);
+        return servicio;
+    }
+
+    private EnvioComprobante envioPendiente() {
+        LocalDateTime ahora = LocalDateTime.now();
+        return new EnvioComprobante(1L, 99L, "ana@kartingrm.cl", EnvioComprobantesService.PENDIENTE, 0, ahora, ahora, null);
+    }
+}
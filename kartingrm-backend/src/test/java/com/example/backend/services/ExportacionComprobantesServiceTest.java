@@ -0,0 +1,91 @@
+package com.example.backend.services;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Comprobante;
+import com.example.backend.entities.Reserva;
+import com.example.backend.repositories.ComprobanteRepository;
+import com.example.backend.repositories.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = BackendApplication.class)
+class ExportacionComprobantesServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2024, 9, 12);
+    private static final int COMPROBANTES = 12;
+
+    @Autowired
+    private ExportacionComprobantesService exportacionComprobantesService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ComprobanteRepository comprobanteRepository;
+
+    @BeforeEach
+    void setUp() {
+        if (!reservaRepository.findByFechaHoraReservaBetween(DIA.atStartOfDay(), DIA.atTime(23, 59)).isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < COMPROBANTES; i++) {
+            LocalDateTime inicio = DIA.atTime(10, 0).plusMinutes(30L * i);
+            Reserva reserva = reservaRepository.save(new Reserva(null, 1L, inicio, inicio.plusMinutes(30), 1, 10,
+                    15000, 17850, "CONFIRMADA", List.of(1L), List.of(1L), null, null));
+            comprobanteRepository.save(new Comprobante(null, reserva, "Ana Pérez", List.of("Ana Pérez"),
+                    15000, 0, 15000, 2850, 17850));
+        }
+    }
+
+    @Test
+    void escribeUnaEntradaPorArchivo() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        int exportados = exportacionComprobantesService.exportarZip(DIA, DIA, true, salida);
+        assertEquals(COMPROBANTES, exportados);
+
+        Set<String> nombres = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(salida.toByteArray()))) {
+            for (ZipEntry entrada; (entrada = zip.getNextEntry()) != null; ) {
+                byte[] contenido = zip.readAllBytes();
+                if (entrada.getName().endsWith(".pdf")) {
+                    assertEquals("%PDF", new String(contenido, 0, 4));
+                }
+                nombres.add(entrada.getName());
+            }
+        }
+        assertEquals(COMPROBANTES * 2, nombres.size());
+    }
+
+    @Test
+    void seCancelaSiElClienteSeDesconecta() {
+        OutputStream desconectado = new OutputStream() {
+            private int escritos;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++escritos > 2048) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+        IOException e = assertThrows(IOException.class,
+                () -> exportacionComprobantesService.exportarZip(DIA, DIA, false, desconectado));
+        assertEquals("Broken pipe", e.getMessage());
+    }
+}
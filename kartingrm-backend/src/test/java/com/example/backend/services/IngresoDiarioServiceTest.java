@@ -0,0 +1,83 @@
+package com.example.backend.services;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.IngresoDiario;
+import com.example.backend.entities.Reportes;
+import com.example.backend.entities.Reserva;
+import com.example.backend.repositories.IngresoDiarioRepository;
+import com.example.backend.repositories.ReservaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = BackendApplication.class)
+class IngresoDiarioServiceTest {
+
+    @Autowired
+    private IngresoDiarioService ingresoDiarioService;
+
+    @Autowired
+    private ReportesService reportesService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private IngresoDiarioRepository ingresoDiarioRepository;
+
+    @Test
+    void registrarYRevertirActualizanUnaSolaFilaPorBucket() {
+        LocalDateTime inicio = LocalDateTime.of(2024, 8, 14, 16, 0);
+        ingresoDiarioService.registrar(reserva(inicio, 10, 3, 5000));
+        ingresoDiarioService.registrar(reserva(inicio.plusHours(1), 10, 4, 7000));
+        ingresoDiarioService.revertir(reserva(inicio, 10, 3, 5000));
+        ingresoDiarioService.registrar(reserva(inicio.plusHours(2), 10, 5, 9000));
+
+        List<IngresoDiario> filas = ingresoDiarioRepository.findByFechaBetween(inicio.toLocalDate(), inicio.toLocalDate());
+        assertEquals(1, filas.size());
+        assertEquals(16000L, filas.get(0).getTotalIngresos());
+        assertEquals(2L, filas.get(0).getCantidadReservas());
+    }
+
+    @Test
+    void reportesCombinanDiasCompletosYExtremosParciales() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 10, 0, 0);
+        guardar(base.plusHours(9), 10, 2, 1000);     // antes del inicio del rango
+        guardar(base.plusHours(16), 10, 2, 2000);    // extremo inicial parcial
+        guardar(base.plusDays(1).plusHours(15), 15, 4, 4000);
+        guardar(base.plusDays(20).plusHours(18), 10, 12, 8000);
+        guardar(base.plusDays(31).plusHours(11), 15, 4, 16000); // extremo final parcial
+        guardar(base.plusDays(31).plusHours(20), 15, 4, 32000); // después del fin del rango
+
+        ingresoDiarioService.reconstruir(false);
+        assertEquals(0, ingresoDiarioService.reconstruir(true).get("bucketsDistintos"));
+
+        LocalDateTime inicio = base.plusHours(12);
+        LocalDateTime fin = base.plusDays(31).plusHours(12);
+
+        assertEquals(Map.of("10 vueltas", 10000L, "15 vueltas", 20000L),
+                porCriterio(reportesService.generarIngresosPorVueltas(inicio, fin)));
+        assertEquals(Map.of("1-2 personas", 2000L, "3-5 personas", 20000L, "11-15 personas", 8000L),
+                porCriterio(reportesService.generarIngresosPorPersonas(inicio, fin)));
+    }
+
+    private void guardar(LocalDateTime inicio, int vueltas, int personas, int precioFinal) {
+        reservaRepository.save(reserva(inicio, vueltas, personas, precioFinal));
+    }
+
+    private Reserva reserva(LocalDateTime inicio, int vueltas, int personas, int precioFinal) {
+        return new Reserva(null, 1L, inicio, inicio.plusMinutes(30), personas, vueltas,
+                1000, precioFinal, "CONFIRMADA", List.of(1L), List.of(1L), null, null);
+    }
+
+    private Map<String, Long> porCriterio(List<Reportes> reportes) {
+        return reportes.stream().collect(Collectors.toMap(Reportes::getCriterio, Reportes::getTotalIngresos));
+    }
+}
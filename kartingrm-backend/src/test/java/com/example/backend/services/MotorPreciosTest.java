@@ -0,0 +1,31 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotorPreciosTest {
+
+    @Test
+    void aplicaElMayorDescuentoEIvaRedondeado() {
+        DesglosePrecio desglose = MotorPrecios.desglosar(10, 30, 15000, 4, 10, 20, 0);
+
+        assertEquals(60000, desglose.tarifaBase());
+        assertEquals(20, desglose.descuentoAplicado());
+        assertEquals(48000, desglose.subtotal());
+        assertEquals(9120, desglose.iva());
+        assertEquals(57120, desglose.total());
+    }
+
+    @Test
+    void elIvaEnteroCoincideConElCalculoAnterior() {
+        for (int precio = 1; precio <= 30000; precio += 7) {
+            for (int descuento : new int[]{0, 10, 20, 30, 50}) {
+                DesglosePrecio desglose = MotorPrecios.desglosar(10, 30, precio, 3, descuento, 0, 0);
+                int subtotal = precio * 3 - (precio * 3 * descuento / 100);
+                assertEquals((int) Math.round(subtotal * 1.19), desglose.total(), "Precio " + precio);
+                assertEquals((int) Math.round(subtotal * 0.19), desglose.iva(), "Precio " + precio);
+            }
+        }
+    }
+}
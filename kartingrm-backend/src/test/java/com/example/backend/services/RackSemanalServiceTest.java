@@ -0,0 +1,82 @@
+package com.example.backend.services;
+
+import com.example.backend.entities.Reserva;
+import com.example.backend.events.ReservaCreadaEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RackSemanalServiceTest {
+
+    // Lunes de la semana ISO 2030-10
+    private final LocalDateTime inicio = LocalDateTime.of(2030, 3, 4, 15, 0);
+
+    private RackSemanalService service;
+
+    private ReservaService reservaService;
+
+    @BeforeEach
+    void setUp() {
+        reservaService = mock(ReservaService.class);
+        service = new RackSemanalService();
+        ReflectionTestUtils.setField(service, "reservaService", reservaService);
+    }
+
+    @Test
+    void unaInvalidacionEntreElArmadoYElGuardadoNoDejaLaVistaEnCache() {
+        Reserva antigua = reserva(1L);
+        Reserva nueva = reserva(2L);
+        when(reservaService.obtenerReservasEntreFechas(any(), any()))
+                .thenReturn(List.of(antigua))
+                .thenReturn(List.of(antigua, nueva));
+
+        // La reserva nueva se confirma justo después de armar la vista y antes de guardarla
+        AtomicBoolean pendiente = new AtomicBoolean(true);
+        ReflectionTestUtils.setField(service, "cache", new ConcurrentHashMap<String, RackSemanalService.VistaSemana>() {
+            @Override
+            public RackSemanalService.VistaSemana put(String clave, RackSemanalService.VistaSemana vista) {
+                invalidarSiFalta();
+                return super.put(clave, vista);
+            }
+
+            @Override
+            public RackSemanalService.VistaSemana compute(String clave, BiFunction<? super String,
+                    ? super RackSemanalService.VistaSemana, ? extends RackSemanalService.VistaSemana> funcion) {
+                invalidarSiFalta();
+                return super.compute(clave, funcion);
+            }
+
+            private void invalidarSiFalta() {
+                if (pendiente.compareAndSet(true, false)) {
+                    service.invalidarSemana(new ReservaCreadaEvent(nueva));
+                }
+            }
+        });
+
+        RackSemanalService.VistaSemana vieja = service.obtenerVistaSemana(2030, 10);
+        assertEquals(1, vieja.reservas().size());
+
+        RackSemanalService.VistaSemana actual = service.obtenerVistaSemana(2030, 10);
+        assertEquals(2, actual.reservas().size());
+        assertNotEquals(vieja.etag(), actual.etag());
+
+        // La vista vigente sí queda en cache
+        assertSame(actual, service.obtenerVistaSemana(2030, 10));
+        verify(reservaService, times(2)).obtenerReservasEntreFechas(any(), any());
+    }
+
+    private Reserva reserva(Long id) {
+        return new Reserva(id, 1L, inicio, inicio.plusMinutes(30), 1, 10,
+                15000, 17850, "CONFIRMADA", List.of(1L), List.of(id), null, null);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.backend.services;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Cliente;
+import com.example.backend.entities.Kart;
+import com.example.backend.entities.Reserva;
+import com.example.backend.entities.Tarifa;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reservas por segundo de crearReserva sobre H2 con 1 hilo y con varios, cada reserva en
+ * una ventana que no se solapa con ninguna otra. Si los cerrojos por franja serializaran
+ * ventanas distintas, el rendimiento no subiría con los hilos. Solo informa: el número
+ * depende de la máquina y no se compara contra un umbral.
+ *
+ * No corre con el build normal: mvn -Pcarga test [-Dcarga.hilos=16 -Dcarga.reservas=600]
+ */
+@Tag("carga")
+@SpringBootTest(classes = BackendApplication.class,
+        properties = "spring.datasource.url=jdbc:h2:mem:kartingrm-rendimiento;DB_CLOSE_DELAY=-1")
+class RendimientoReservasTest {
+
+    private static final int HILOS = Integer.getInteger("carga.hilos", 8);
+    private static final int RESERVAS = Integer.getInteger("carga.reservas", 300);
+    private static final int CALENTAMIENTO = 50;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private KartService kartService;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Test
+    void informarReservasPorSegundoSegunHilos() throws Exception {
+        List<String> correos = sembrar();
+
+        // Cada corrida usa sus propios días para que ninguna reserva choque con otra
+        medir(1, CALENTAMIENTO, LocalDate.of(2034, 1, 1), correos);
+        double conUno = medir(1, RESERVAS, LocalDate.of(2035, 1, 1), correos);
+        double conVarios = medir(HILOS, RESERVAS, LocalDate.of(2037, 1, 1), correos);
+
+        System.out.printf("%ncrearReserva en ventanas distintas: 1 hilo %.1f reservas/s, %d hilos %.1f reservas/s (x%.2f)%n",
+                conUno, HILOS, conVarios, conVarios / conUno);
+    }
+
+    private double medir(int hilos, int reservas, LocalDate primerDia, List<String> correos) throws Exception {
+        List<Callable<Reserva>> tareas = new ArrayList<>();
+        for (int n = 0; n < reservas; n++) {
+            // Un día y un titular por reserva; la hora va rotando para repartir las franjas
+            LocalDateTime inicio = primerDia.plusDays(n).atTime(14, 0).plusMinutes(30L * (n % 16));
+            String titular = correos.get(n % correos.size());
+            tareas.add(() -> reservaService.crearReserva(reserva(inicio, titular)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        long t0 = System.nanoTime();
+        int creadas = 0;
+        try {
+            for (Future<Reserva> f : pool.invokeAll(tareas)) {
+                f.get();
+                creadas++;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double segundos = (System.nanoTime() - t0) / 1e9;
+        assertEquals(reservas, creadas);
+        return reservas / segundos;
+    }
+
+    private List<String> sembrar() {
+        for (int i = 1; i <= 15; i++) {
+            kartService.guardarKart(new Kart(null, "Sodikart RT8", String.format("R%03d", i)));
+        }
+        tarifaService.guardarTarifa(new Tarifa(null, 10, 10, 30, 15000));
+
+        // Un titular distinto por reserva en curso, para no concentrar el contador de visitas en una fila
+        List<String> correos = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            String correo = "cliente" + i + "@rendimiento.kartingrm.cl";
+            clienteService.guardarCliente(new Cliente(null, "rut-r-" + i, "Cliente " + i, correo,
+                    "+569" + (20000000 + i), LocalDate.of(1985, 1 + i % 12, 1 + i % 28)));
+            correos.add(correo);
+        }
+        return correos;
+    }
+
+    private Reserva reserva(LocalDateTime inicio, String titular) {
+        Reserva reserva = new Reserva();
+        reserva.setFechaHoraReserva(inicio);
+        reserva.setNumeroVueltas(10);
+        reserva.setCorreoTitular(titular);
+        reserva.setCorreosParticipantes(List.of(titular));
+        return reserva;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.backend.services;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Reportes;
+import com.example.backend.entities.Reserva;
+import com.example.backend.events.ReservaCreadaEvent;
+import com.example.backend.events.ReservaEliminadaEvent;
+import com.example.backend.repositories.ReportesRepository;
+import com.example.backend.repositories.ReservaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = BackendApplication.class)
+class ReportesServiceTest {
+
+    @Autowired
+    private ReportesService reportesService;
+
+    @Autowired
+    private ReportesRepository reportesRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IngresoDiarioService ingresoDiarioService;
+
+    @Autowired
+    private PrecalculoReportesService precalculoReportesService;
+
+    // Rango con horas parciales: se suma directo desde las reservas
+    private final LocalDateTime inicio = LocalDateTime.of(2024, 11, 5, 12, 0);
+    private final LocalDateTime fin = LocalDateTime.of(2024, 11, 5, 20, 0);
+
+    @Test
+    void pedidosIgualesSeCalculanUnaVezSinEscribir() throws Exception {
+        guardar(inicio.plusHours(2), 3000);
+        long filas = reportesRepository.count();
+        long calculos = meterRegistry.timer("kartingrm.reporte.generacion", "tipo", ReportesService.VUELTAS).count();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Callable<List<Reportes>>> pedidos = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            pedidos.add(() -> reportesService.generarIngresosPorVueltas(inicio, fin));
+        }
+        for (Future<List<Reportes>> resultado : pool.invokeAll(pedidos)) {
+            assertEquals(3000L, resultado.get().get(0).getTotalIngresos());
+        }
+        pool.shutdown();
+        assertEquals("10 minutos", reportesService.generarIngresosPorTiempo(inicio, fin).get(0).getCriterio());
+
+        assertEquals(calculos + 1,
+                meterRegistry.timer("kartingrm.reporte.generacion", "tipo", ReportesService.VUELTAS).count());
+        assertEquals(filas, reportesRepository.count());
+
+        // Una reserva nueva dentro del rango invalida el resultado
+        Reserva nueva = guardar(inicio.plusHours(4), 5000);
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(estado -> eventPublisher.publishEvent(new ReservaCreadaEvent(nueva)));
+        assertEquals(8000L, reportesService.generarIngresosPorVueltas(inicio, fin).get(0).getTotalIngresos());
+    }
+
+    @Test
+    void lasInstantaneasSeGuardanAParteYCaducan() {
+        guardar(inicio.plusDays(1).plusHours(2), 7000);
+        LocalDateTime desde = inicio.plusDays(1);
+        LocalDateTime hasta = fin.plusDays(1);
+
+        List<Reportes> instantanea = reportesService.guardarInstantanea(ReportesService.PERSONAS, desde, hasta);
+        assertNotNull(instantanea.get(0).getId());
+        assertNull(reportesService.generarIngresosPorPersonas(desde, hasta).get(0).getId());
+
+        Reportes antigua = reportesRepository.save(Reportes.builder().tipo("INGRESOS_PERSONAS")
+                .criterio("1-2 personas").totalIngresos(1L).fechaGeneracion(LocalDateTime.now().minusYears(1)).build());
+        assertTrue(reportesService.eliminarInstantaneasAntiguas() >= 1);
+        assertFalse(reportesRepository.existsById(antigua.getId()));
+        assertTrue(reportesRepository.existsById(instantanea.get(0).getId()));
+    }
+
+    @Test
+    void losMesesCerradosSePrecalculanYSeSumanAlRestoDelRango() throws Exception {
+        guardar(LocalDateTime.of(2023, 1, 10, 15, 0), 1000);
+        Reserva febrero = guardar(LocalDateTime.of(2023, 2, 20, 16, 0), 2000);
+        guardar(LocalDateTime.of(2023, 3, 5, 17, 0), 4000);
+        guardar(LocalDateTime.of(2022, 12, 31, 18, 0), 8000);
+        ingresoDiarioService.reconstruir(false);
+
+        LocalDateTime desde = LocalDateTime.of(2022, 12, 31, 12, 0);
+        LocalDateTime hasta = LocalDateTime.of(2023, 3, 15, 12, 0);
+        List<Reportes> porVueltas = reportesService.calcular(ReportesService.VUELTAS, desde, hasta);
+        List<Reportes> porPersonas = reportesService.calcular(ReportesService.PERSONAS, desde, hasta);
+        long meses = meterRegistry.timer(ReportesService.METRICA_PRECALCULO_MES).count();
+
+        // Una reserva que no pasó por los ingresos diarios deja su mes sin verificar
+        guardar(LocalDateTime.of(2022, 9, 14, 15, 0), 500);
+
+        Map<String, Object> resumen = precalculoReportesService.precalcularMesesCerrados();
+        assertEquals(0, resumen.get("fallidos"));
+        assertTrue(reportesService.estaPrecalculado(YearMonth.of(2023, 1)));
+        assertTrue(reportesService.estaPrecalculado(YearMonth.of(2023, 2)));
+        assertFalse(reportesService.estaPrecalculado(YearMonth.of(2022, 9)));
+        assertFalse(reportesService.estaPrecalculado(YearMonth.now()));
+        assertTrue((Integer) resumen.get("sinVerificar") >= 1);
+        assertEquals(meses + (Integer) resumen.get("meses") - (Integer) resumen.get("sinVerificar"),
+                meterRegistry.timer(ReportesService.METRICA_PRECALCULO_MES).count());
+        assertEquals(1, meterRegistry.timer(PrecalculoReportesService.METRICA).count());
+
+        assertEquals(totales(porVueltas), totales(reportesService.calcular(ReportesService.VUELTAS, desde, hasta)));
+        assertEquals(totales(porPersonas), totales(reportesService.calcular(ReportesService.PERSONAS, desde, hasta)));
+
+        // Un cambio en un mes cerrado lo devuelve al cálculo en vivo
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(estado -> eventPublisher.publishEvent(new ReservaEliminadaEvent(febrero)));
+        assertFalse(reportesService.estaPrecalculado(YearMonth.of(2023, 2)));
+        reportesService.vaciarCache();
+    }
+
+    private Map<String, Long> totales(List<Reportes> reportes) {
+        return reportes.stream().collect(Collectors.toMap(Reportes::getCriterio, Reportes::getTotalIngresos));
+    }
+
+    private Reserva guardar(LocalDateTime inicio, int precioFinal) {
+        return reservaRepository.save(new Reserva(null, 1L, inicio, inicio.plusMinutes(30), 1, 10,
+                1000, precioFinal, "CONFIRMADA", List.of(1L), List.of(1L), null, null));
+    }
+}
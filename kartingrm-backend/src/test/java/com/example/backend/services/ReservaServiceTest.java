@@ -0,0 +1,336 @@
+package com.example.backend.services;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entities.Cliente;
+import com.example.backend.entities.Comprobante;
+import com.example.backend.entities.Kart;
+import com.example.backend.entities.Reserva;
+import com.example.backend.entities.Tarifa;
+import com.example.backend.repositories.ComprobanteRepository;
+import com.example.backend.repositories.KartRepository;
+import com.example.backend.repositories.RackSemanalRepository;
+import com.example.backend.repositories.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.IsoFields;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = BackendApplication.class)
+class ReservaServiceTest {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private KartRepository kartRepository;
+
+    @Autowired
+    private KartService kartService;
+
+    @Autowired
+    private DisponibilidadKartsService disponibilidadKartsService;
+
+    @Autowired
+    private RackSemanalService rackSemanalService;
+
+    @Autowired
+    private RackSemanalRepository rackSemanalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private VisitasMensualesService visitasMensualesService;
+
+    @Autowired
+    private ComprobanteRepository comprobanteRepository;
+
+    @BeforeEach
+    void setUp() {
+        if (kartRepository.count() == 0) {
+            for (int i = 1; i <= 15; i++) {
+                kartService.guardarKart(new Kart(null, "Sodikart RT8", String.format("K%03d", i)));
+            }
+        }
+        if (tarifaService.obtenerTarifaPorVueltas(10) == null) {
+            tarifaService.guardarTarifa(new Tarifa(null, 10, 10, 30, 15000));
+        }
+    }
+
+    @Test
+    void creaYEliminaUnaReserva() {
+        Cliente titular = cliente("titular.reserva@kartingrm.cl", LocalDate.of(1990, 1, 1));
+        Cliente amigo = cliente("amigo.reserva@kartingrm.cl", LocalDate.of(1991, 2, 2));
+
+        // Un martes sin feriados ni cumpleaños
+        LocalDateTime inicio = LocalDateTime.of(2031, 6, 10, 15, 0);
+        LocalDate dia = inicio.toLocalDate();
+        int anio = dia.get(IsoFields.WEEK_BASED_YEAR);
+        int semana = dia.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        assertTrue(rackSemanalService.obtenerReservasDeSemana(anio, semana).isEmpty());
+
+        Reserva reserva = reservaService.crearReserva(nuevaReserva(inicio, titular, amigo));
+
+        assertEquals(2, reserva.getIdsKartsReservados().size());
+        assertEquals(inicio.plusMinutes(30), reserva.getFechaHoraFin());
+        assertEquals((int) Math.round(30000 * 1.19), reserva.getPrecioFinal());
+
+        // La vista de la semana se invalida con la reserva nueva
+        List<Map<String, Object>> rack = rackSemanalService.obtenerReservasDeSemana(anio, semana);
+        assertEquals(1, rack.size());
+        assertTrue(rackSemanalRepository.findFirstByAnioAndNumeroSemanaOrderByIdAsc(anio, semana).isPresent());
+        assertEquals(1, racksConReserva(reserva.getId()));
+
+        assertTrue(reservaService.eliminarReserva(reserva.getId()));
+        assertEquals(0, racksConReserva(reserva.getId()));
+        assertTrue(rackSemanalService.obtenerReservasDeSemana(anio, semana).isEmpty());
+        assertEquals(15, disponibilidadKartsService.buscarKartsLibres(inicio, inicio.plusMinutes(30), 15).size());
+    }
+
+    @Test
+    void exportaTodasLasReservasComoNdjson() throws Exception {
+        Cliente titular = cliente("titular.exportar@kartingrm.cl", LocalDate.of(1990, 1, 1));
+        reservaService.crearReserva(nuevaReserva(LocalDateTime.of(2031, 6, 12, 16, 0), titular));
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        reservaService.exportarTodas(salida);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(reservaRepository.count(), lineas.length);
+        assertTrue(lineas[lineas.length - 1].startsWith("{\"id\":"));
+    }
+
+    @Test
+    void importaUnLoteRechazandoSoloLasFilasInvalidas() {
+        Cliente titular = cliente("titular.importar@kartingrm.cl", LocalDate.of(1990, 1, 1));
+        Cliente amigo = cliente("amigo.importar@kartingrm.cl", LocalDate.of(1991, 2, 2));
+        LocalDateTime inicio = LocalDateTime.of(2031, 6, 17, 15, 0);
+
+        Reserva desconocida = nuevaReserva(inicio.plusHours(3), titular);
+        desconocida.setCorreosParticipantes(List.of("nadie.importar@kartingrm.cl"));
+        List<Reserva> lote = List.of(
+                grupo(inicio, titular, amigo, 10),
+                grupo(inicio, titular, amigo, 5),
+                // Ya no quedan karts: la pista se llenó con las dos filas anteriores
+                nuevaReserva(inicio.plusMinutes(10), amigo),
+                desconocida,
+                nuevaReserva(inicio.plusHours(2), titular, amigo));
+
+        List<Map<String, Object>> resultados = reservaService.importarReservas(lote);
+
+        assertEquals(List.of("CREADA", "CREADA", "RECHAZADA", "RECHAZADA", "CREADA"),
+                resultados.stream().map(r -> r.get("estado")).toList());
+        assertTrue(((String) resultados.get(2).get("error")).contains("karts"));
+        assertTrue(((String) resultados.get(3).get("error")).contains("nadie.importar@kartingrm.cl"));
+
+        Reserva primera = reservaRepository.findById((Long) resultados.get(0).get("reservaId")).orElseThrow();
+        Reserva segunda = reservaRepository.findById((Long) resultados.get(1).get("reservaId")).orElseThrow();
+        Set<Long> karts = new HashSet<>(primera.getIdsKartsReservados());
+        karts.addAll(segunda.getIdsKartsReservados());
+        assertEquals(15, karts.size());
+        assertTrue(disponibilidadKartsService.buscarKartsLibres(inicio, inicio.plusMinutes(30), 1).isEmpty());
+    }
+
+    @Test
+    void cuentaLasVisitasDelMesSinRecorrerLasReservas() {
+        Cliente titular = cliente("titular.visitas@kartingrm.cl", LocalDate.of(1990, 1, 1));
+        LocalDateTime inicio = LocalDateTime.of(2031, 7, 8, 15, 0);
+        assertEquals(0, reservaService.obtenerReservasDelMesFront(titular.getId(), inicio));
+
+        Reserva primera = reservaService.crearReserva(nuevaReserva(inicio, titular));
+        reservaService.crearReserva(nuevaReserva(inicio.plusDays(7), titular));
+        assertEquals(2, reservaService.obtenerReservasDelMesFront(titular.getId(), inicio));
+        assertEquals(0, reservaService.obtenerReservasDelMesFront(titular.getId(), inicio.plusMonths(1)));
+
+        assertTrue(reservaService.eliminarReserva(primera.getId()));
+        assertEquals(1, reservaService.obtenerReservasDelMesFront(titular.getId(), inicio));
+
+        // Una reserva escrita sin pasar por el servicio solo aparece tras conciliar
+        reservaRepository.save(new Reserva(null, titular.getId(), inicio.plusDays(14), inicio.plusDays(14).plusMinutes(30),
+                1, 10, 15000, 17850, "CONFIRMADA", List.of(titular.getId()), List.of(1L), null, null));
+        assertEquals(1, reservaService.obtenerReservasDelMesFront(titular.getId(), inicio));
+        assertTrue((Integer) visitasMensualesService.conciliar(true).get("contadoresDistintos") > 0);
+        visitasMensualesService.conciliar(false);
+        assertEquals(0, visitasMensualesService.conciliar(true).get("contadoresDistintos"));
+        assertEquals(2, reservaService.obtenerReservasDelMesFront(titular.getId(), inicio));
+    }
+
+    @Test
+    void lasVisitasSimultaneasDelMesQuedanEnUnaSolaFila() throws Exception {
+        long titularId = 910_001L;
+        LocalDateTime inicio = LocalDateTime.of(2031, 9, 9, 15, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> resultados = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                LocalDateTime hora = inicio.plusHours(i % 8);
+                resultados.add(pool.submit(() -> visitasMensualesService.registrar(new Reserva(null, titularId, hora,
+                        hora.plusMinutes(30), 1, 10, 15000, 17850, "CONFIRMADA", List.of(titularId), List.of(1L), null, null))));
+            }
+            for (Future<?> resultado : resultados) {
+                resultado.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM visita_mensual WHERE cliente_id = ? AND anio = 2031 AND mes = 9", Integer.class, titularId));
+        assertEquals(40, visitasMensualesService.contar(titularId, inicio));
+    }
+
+    @Test
+    void laCotizacionNoEscribeYCoincideConLaReserva() {
+        Cliente titular = cliente("titular.cotizar@kartingrm.cl", LocalDate.of(1990, 1, 1));
+        Cliente amigo = cliente("amigo.cotizar@kartingrm.cl", LocalDate.of(1991, 2, 2));
+        LocalDateTime inicio = LocalDateTime.of(2031, 8, 12, 15, 0);
+
+        long reservas = reservaRepository.count();
+        DesglosePrecio cotizacion = reservaService.cotizarReserva(10, 2, inicio.toLocalDate(), titular.getEmail());
+        assertEquals(reservas, reservaRepository.count());
+
+        Reserva reserva = reservaService.crearReserva(nuevaReserva(inicio, titular, amigo));
+        assertEquals(cotizacion.total(), reserva.getPrecioFinal());
+        assertEquals(cotizacion.precioBasePorPersona(), reserva.getPrecioBase());
+        Comprobante comprobante = comprobanteRepository.findByReserva(reserva).orElseThrow();
+        assertEquals(cotizacion.subtotal(), comprobante.getSubtotal());
+        assertEquals(cotizacion.iva(), comprobante.getIva());
+        assertEquals(reserva.getPrecioFinal(), comprobante.getTotal());
+    }
+
+    @Test
+    void laCotizacionSeRecalculaAlCambiarLaTarifa() {
+        Tarifa tarifa = tarifaService.guardarTarifa(new Tarifa(null, 25, 25, 50, 30000));
+        LocalDate martes = LocalDate.of(2031, 8, 19);
+        assertEquals(30000, reservaService.cotizarReserva(25, 1, martes, null).precioBasePorPersona());
+
+        tarifa.setPrecio(32000);
+        tarifaService.guardarTarifa(tarifa);
+        assertEquals(32000, reservaService.cotizarReserva(25, 1, martes, null).precioBasePorPersona());
+
+        // Cambiar la tarifa recibida sin guardarla no cambia el precio para los demás
+        tarifaService.obtenerTarifaPorVueltas(25).setPrecio(1);
+        assertEquals(32000, tarifaService.obtenerTarifaPorVueltas(25).getPrecio());
+        assertEquals(32000, reservaService.cotizarReserva(25, 1, martes, null).precioBasePorPersona());
+    }
+
+    @Test
+    void reservasConcurrentesNoRepitenKarts() throws Exception {
+        Cliente titular = cliente("titular.concurrencia@kartingrm.cl", LocalDate.of(1990, 1, 1));
+        Cliente amigo = cliente("amigo.concurrencia@kartingrm.cl", LocalDate.of(1991, 2, 2));
+
+        // 200 grupos de 1 a 6 personas en 8 horarios solapados: piden muchos más karts de los que hay
+        LocalDateTime primera = LocalDateTime.of(2033, 5, 10, 15, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Callable<Reserva>> tareas = new ArrayList<>();
+        for (int n = 0; n < 200; n++) {
+            LocalDateTime inicio = primera.plusMinutes(10L * (n % 8));
+            int personas = 1 + n % 6;
+            tareas.add(() -> {
+                try {
+                    return reservaService.crearReserva(grupo(inicio, titular, amigo, personas));
+                } catch (IllegalStateException sinKarts) {
+                    return null;
+                }
+            });
+        }
+        List<Reserva> creadas = new ArrayList<>();
+        try {
+            for (Future<Reserva> f : pool.invokeAll(tareas)) {
+                if (f.get() != null) {
+                    creadas.add(f.get());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertFalse(creadas.isEmpty());
+        assertTrue(creadas.size() < tareas.size());
+
+        // Se revisa lo que quedó en la base, no lo que devolvió cada llamada
+        List<Reserva> guardadas = reservaRepository.findReservasSolapadas(primera, primera.plusHours(2));
+        assertEquals(creadas.size(), guardadas.size());
+        Map<Long, List<Reserva>> porKart = new HashMap<>();
+        for (Reserva r : guardadas) {
+            r.getIdsKartsReservados().forEach(k -> porKart.computeIfAbsent(k, x -> new ArrayList<>()).add(r));
+        }
+        porKart.forEach((kart, reservas) -> {
+            reservas.sort(Comparator.comparing(Reserva::getFechaHoraReserva));
+            for (int j = 1; j < reservas.size(); j++) {
+                assertFalse(reservas.get(j).getFechaHoraReserva().isBefore(reservas.get(j - 1).getFechaHoraFin()),
+                        "Kart " + kart + " asignado dos veces en el mismo horario");
+            }
+        });
+    }
+
+    @Test
+    void informaCadaCorreoDesconocido() {
+        Cliente titular = cliente("titular.desconocidos@kartingrm.cl", LocalDate.of(1990, 1, 1));
+        Reserva reserva = nuevaReserva(LocalDateTime.of(2031, 6, 11, 15, 0), titular);
+        reserva.setCorreosParticipantes(List.of(titular.getEmail(), "nadie@kartingrm.cl", "otro@kartingrm.cl"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> reservaService.crearReserva(reserva));
+        assertTrue(e.getMessage().contains("nadie@kartingrm.cl"));
+        assertTrue(e.getMessage().contains("otro@kartingrm.cl"));
+    }
+
+    private Cliente cliente(String email, LocalDate nacimiento) {
+        Cliente existente = clienteService.buscarPorEmail(email);
+        if (existente != null) {
+            return existente;
+        }
+        return clienteService.guardarCliente(new Cliente(null, email, email, email, "+56900000000", nacimiento));
+    }
+
+    private Reserva grupo(LocalDateTime inicio, Cliente titular, Cliente amigo, int personas) {
+        Reserva reserva = nuevaReserva(inicio, titular);
+        List<String> correos = new ArrayList<>();
+        for (int i = 0; i < personas; i++) {
+            correos.add(i % 2 == 0 ? titular.getEmail() : amigo.getEmail());
+        }
+        reserva.setCorreosParticipantes(correos);
+        return reserva;
+    }
+
+    private Reserva nuevaReserva(LocalDateTime inicio, Cliente titular, Cliente... otros) {
+        Reserva reserva = new Reserva();
+        reserva.setFechaHoraReserva(inicio);
+        reserva.setNumeroVueltas(10);
+        reserva.setCorreoTitular(titular.getEmail());
+        List<String> correos = new ArrayList<>(List.of(titular.getEmail()));
+        for (Cliente otro : otros) {
+            correos.add(otro.getEmail());
+        }
+        reserva.setCorreosParticipantes(correos);
+        return reserva;
+    }
+
+    private long racksConReserva(Long reservaId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM rack_semanal_ids_reservas WHERE ids_reservas = ?", Long.class, reservaId);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablaDescuentosTest {
+
+    @Test
+    void buscaElPorcentajeDelRango() {
+        TablaDescuentos tabla = new TablaDescuentos(List.of(
+                new TablaDescuentos.Rango(6, 10, 20),
+                new TablaDescuentos.Rango(1, 2, 0),
+                new TablaDescuentos.Rango(3, 5, 10),
+                new TablaDescuentos.Rango(11, 5000, 30)));
+
+        assertEquals(0, tabla.buscar(0));
+        assertEquals(0, tabla.buscar(2));
+        assertEquals(10, tabla.buscar(3));
+        assertEquals(20, tabla.buscar(10));
+        assertEquals(30, tabla.buscar(15));
+        assertEquals(30, tabla.buscar(4000));
+        assertEquals(0, tabla.buscar(5001));
+        assertEquals(0, tabla.buscar(-1));
+    }
+
+    @Test
+    void rechazaSolapesYHuecos() {
+        assertThrows(IllegalArgumentException.class, () -> new TablaDescuentos(List.of(
+                new TablaDescuentos.Rango(1, 5, 10),
+                new TablaDescuentos.Rango(5, 10, 20))));
+        assertThrows(IllegalArgumentException.class, () -> new TablaDescuentos(List.of(
+                new TablaDescuentos.Rango(1, 4, 10),
+                new TablaDescuentos.Rango(6, 10, 20))));
+    }
+
+    @Test
+    void lasReglasGuardadasInvalidasSeBuscanEnFormaLineal() {
+        TablaDescuentos tabla = TablaDescuentos.desdeGuardados("prueba", List.of(
+                new TablaDescuentos.Rango(1, 5, 10),
+                new TablaDescuentos.Rango(5, 10, 20),
+                new TablaDescuentos.Rango(15, 20, 30)));
+
+        assertFalse(tabla.esValida());
+        assertEquals(10, tabla.buscar(5));
+        assertEquals(20, tabla.buscar(6));
+        assertEquals(0, tabla.buscar(12));
+        assertEquals(30, tabla.buscar(20));
+
+        assertTrue(TablaDescuentos.desdeGuardados("prueba", List.of(new TablaDescuentos.Rango(1, 5, 10))).esValida());
+    }
+}
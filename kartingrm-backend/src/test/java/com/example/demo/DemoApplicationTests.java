@@ -1,9 +1,10 @@
 package com.example.demo;
 
+import com.example.backend.BackendApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(classes = BackendApplication.class)
 class DemoApplicationTests {
 
 	@Test